@@ -0,0 +1,452 @@
+package cluster;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import model.PomodoroSession;
+import model.SessionConfig;
+import model.SessionEngine;
+import model.Statistics;
+import org.json.JSONObject;
+import persistence.JsonReader;
+
+// Represents one node of a cluster that partitions session ownership with a consistent-hash ring.
+// Every node runs its own SessionEngine and listens on a socket; a request for a session is routed to the
+// node that owns the session's id on the ring, which may be this one. When a node joins, every other node
+// hands the sessions the newcomer now owns over to it, and a node that leaves first hands all of its
+// sessions to their new owners. A session travels as its toJson() state, and a running session catches up
+// on the time spent in transit when it is restored, so it keeps counting down as if it had never moved.
+// Messages are single lines of JSON, one request and one response per connection. Run several nodes on one
+// machine with main(), each on its own loopback port, to try a cluster locally.
+// A request for a session that is being handed over may fail (return false) and should be retried.
+public class ClusterNode {
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    private final String nodeId;
+    private final SessionEngine engine;
+    private final HashRing ring;
+    private final ConcurrentHashMap<String, InetSocketAddress> members;
+    private final JsonReader reader;
+    private final ServerSocket server;
+    private final ExecutorService workers;
+
+    /*
+     * EFFECTS: creates a node under nodeId that owns sessions in engine and listens on a free loopback port;
+     *          the node is a cluster of one until it joins another node;
+     *          throws IOException if the socket cannot be opened
+     */
+    public ClusterNode(String nodeId, SessionEngine engine) throws IOException {
+        this(nodeId, engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /*
+     * EFFECTS: like the constructor above, but listens on the given address
+     */
+    public ClusterNode(String nodeId, SessionEngine engine, InetSocketAddress bindAddress) throws IOException {
+        this.nodeId = nodeId;
+        this.engine = engine;
+        this.ring = new HashRing();
+        this.members = new ConcurrentHashMap<>();
+        this.reader = new JsonReader();
+        this.server = new ServerSocket();
+        server.bind(bindAddress);
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pomodoro-cluster-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        members.put(nodeId, getAddress());
+        ring.addNode(nodeId);
+        workers.execute(this::acceptConnections);
+    }
+
+    /*
+     * MODIFIES: this, every node in the cluster
+     * EFFECTS: joins the cluster that the node listening on seed belongs to; returns once every member has
+     *          handed over the sessions this node now owns;
+     *          throws IOException if a member cannot be reached
+     */
+    public void join(InetSocketAddress seed) throws IOException {
+        JSONObject known = call(seed, request("members")).getJSONObject("members");
+        for (String node : known.keySet()) {
+            addMember(node, known.getJSONObject(node));
+        }
+        JSONObject announce = addressJson(getAddress()).put("op", "join").put("node", nodeId);
+        for (Map.Entry<String, InetSocketAddress> member : members.entrySet()) {
+            if (!member.getKey().equals(nodeId)) {
+                call(member.getValue(), announce);
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: this, every node in the cluster
+     * EFFECTS: leaves the cluster, hands every session to its new owner and closes the node;
+     *          sessions stay in this node's engine if it is the last node or their new owner cannot be reached;
+     *          throws IOException if a member cannot be told about the leave
+     */
+    public void leave() throws IOException {
+        ring.removeNode(nodeId);
+        members.remove(nodeId);
+        JSONObject announce = request("leave").put("node", nodeId);
+        for (InetSocketAddress member : members.values()) {
+            call(member, announce);
+        }
+        handOff();
+        close();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops listening; the engine and its sessions are left alone
+     */
+    public void close() throws IOException {
+        server.close();
+        workers.shutdownNow();
+    }
+
+    /*
+     * EFFECTS: creates a stopped session with the given settings and fresh statistics on the node that owns id;
+     *          returns false if a session with that id already exists there;
+     *          throws IOException if the owner cannot be reached
+     */
+    public boolean create(String id, SessionConfig config) throws IOException {
+        JSONObject message = request("create").put("id", id)
+                .put("workDuration", config.getWorkDuration() / 60)
+                .put("shortBreakDuration", config.getShortBreakDuration() / 60)
+                .put("longBreakDuration", config.getLongBreakDuration() / 60)
+                .put("longBreakInterval", config.getLongBreakInterval());
+        return route(id, message).getBoolean("ok");
+    }
+
+    /*
+     * EFFECTS: starts a work phase for the session under id on the node that owns it;
+     *          returns false if there is no such session; throws IOException if the owner cannot be reached
+     */
+    public boolean start(String id) throws IOException {
+        return route(id, request("start").put("id", id)).getBoolean("ok");
+    }
+
+    /*
+     * EFFECTS: stops the session under id on the node that owns it;
+     *          returns false if there is no such session; throws IOException if the owner cannot be reached
+     */
+    public boolean stop(String id) throws IOException {
+        return route(id, request("stop").put("id", id)).getBoolean("ok");
+    }
+
+    /*
+     * EFFECTS: resets the timer of the session under id on the node that owns it;
+     *          returns false if there is no such session; throws IOException if the owner cannot be reached
+     */
+    public boolean reset(String id) throws IOException {
+        return route(id, request("reset").put("id", id)).getBoolean("ok");
+    }
+
+    /*
+     * EFFECTS: returns the toJson() state of the session under id from the node that owns it, or null if
+     *          there is no such session; throws IOException if the owner cannot be reached
+     */
+    public JSONObject get(String id) throws IOException {
+        return route(id, request("get").put("id", id)).optJSONObject("pomodoroSession");
+    }
+
+    /*
+     * EFFECTS: returns the id of the node that owns the session under id
+     */
+    public String ownerOf(String id) {
+        return ring.ownerOf(id);
+    }
+
+    /*
+     * EFFECTS: returns the ids of the nodes this node knows to be in the cluster
+     */
+    public List<String> getMembers() {
+        return ring.getNodes();
+    }
+
+    /*
+     * EFFECTS: returns this node's id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /*
+     * EFFECTS: returns the address this node listens on
+     */
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+    }
+
+    /*
+     * EFFECTS: returns the engine that holds the sessions this node owns
+     */
+    public SessionEngine getEngine() {
+        return engine;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: answers a request, whether it came from a peer or from this node
+     */
+    JSONObject handle(JSONObject message) {
+        String op = message.getString("op");
+        switch (op) {
+            case "members":
+                return reply(true).put("members", membersJson());
+            case "join":
+                addMember(message.getString("node"), message);
+                handOff();
+                return reply(true);
+            case "leave":
+                members.remove(message.getString("node"));
+                ring.removeNode(message.getString("node"));
+                return reply(true);
+            case "create":
+                return reply(createLocal(message));
+            case "start":
+                return reply(engine.start(message.getString("id")));
+            case "stop":
+                return reply(engine.stop(message.getString("id")));
+            case "reset":
+                return reply(engine.reset(message.getString("id")));
+            default:
+                return handleSession(op, message);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: answers the requests that read or move a whole session
+     */
+    private JSONObject handleSession(String op, JSONObject message) {
+        if (op.equals("transfer")) {
+            return reply(adopt(message));
+        }
+        if (op.equals("get")) {
+            PomodoroSession session = engine.lookup(message.getString("id"));
+            return session == null ? reply(false) : reply(true).put("pomodoroSession", session.toJson());
+        }
+        return reply(false).put("error", "Unknown op: " + op);
+    }
+
+    /*
+     * EFFECTS: answers message here if this node owns id, otherwise sends it to the owner and returns its answer
+     */
+    private JSONObject route(String id, JSONObject message) throws IOException {
+        String owner = ring.ownerOf(id);
+        InetSocketAddress address = owner == null ? null : members.get(owner);
+        if (owner == null || owner.equals(nodeId) || address == null) {
+            return handle(message);
+        }
+        return call(address, message);
+    }
+
+    /*
+     * MODIFIES: this, the nodes that now own some of this node's sessions
+     * EFFECTS: sends every session whose id this node no longer owns to its owner
+     */
+    private void handOff() {
+        for (String id : engine.ids()) {
+            String owner = ring.ownerOf(id);
+            if (owner != null && !owner.equals(nodeId)) {
+                transfer(id, owner);
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: this, owner
+     * EFFECTS: moves the session under id to owner; the session is detached here (not stopped, so the move does
+     *          not count as an early stop) before it is sent, and is restored here if the owner cannot take it
+     */
+    private void transfer(String id, String owner) {
+        InetSocketAddress address = members.get(owner);
+        if (address == null) {
+            return;
+        }
+        PomodoroSession session = engine.detach(id);
+        if (session == null) {
+            return;
+        }
+        JSONObject message = request("transfer").put("id", id).put("pomodoroSession", session.toJson());
+        boolean moved;
+        try {
+            moved = call(address, message).getBoolean("ok");
+        } catch (IOException e) {
+            moved = false;
+        }
+        if (!moved) {
+            adopt(message);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: restores the session sent in message into the engine; returns false if a session with its id
+     *          is already here
+     */
+    private boolean adopt(JSONObject message) {
+        String id = message.getString("id");
+        PomodoroSession session = reader.parsePomodoroSession(message, engine.schedulerFor(id));
+        try {
+            engine.register(id, session);
+            return true;
+        } catch (IllegalArgumentException e) {
+            session.detach();
+            return false;
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: creates the session described in message in the engine; returns false if it already exists
+     */
+    private boolean createLocal(JSONObject message) {
+        SessionConfig config = new SessionConfig(message.getInt("workDuration"),
+                message.getInt("shortBreakDuration"), message.getInt("longBreakDuration"),
+                message.getInt("longBreakInterval"));
+        try {
+            engine.create(message.getString("id"), config, new Statistics());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: records node as a member listening on the host and port in address and places it on the ring
+     */
+    private void addMember(String node, JSONObject address) {
+        members.put(node, new InetSocketAddress(address.getString("host"), address.getInt("port")));
+        ring.addNode(node);
+    }
+
+    /*
+     * EFFECTS: returns the members this node knows with their addresses
+     */
+    private JSONObject membersJson() {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, InetSocketAddress> member : members.entrySet()) {
+            json.put(member.getKey(), addressJson(member.getValue()));
+        }
+        return json;
+    }
+
+    /*
+     * EFFECTS: accepts connections until the node is closed, serving each on a worker thread
+     */
+    private void acceptConnections() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                workers.execute(() -> serve(socket));
+            } catch (IOException | RejectedExecutionException e) {
+                // the node was closed
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: reads one request from socket, answers it and closes the connection
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setSoTimeout(TIMEOUT_MILLIS);
+            String line = readerFor(connection).readLine();
+            if (line == null) {
+                return;
+            }
+            JSONObject response;
+            try {
+                response = handle(new JSONObject(line));
+            } catch (RuntimeException e) {
+                response = reply(false).put("error", String.valueOf(e.getMessage()));
+            }
+            BufferedWriter out = writerFor(connection);
+            out.write(response.toString());
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            // the peer went away; it sees the failure on its side
+        }
+    }
+
+    /*
+     * EFFECTS: sends message to the node listening on address and returns its answer;
+     *          throws IOException if the node cannot be reached or does not answer in time
+     */
+    private static JSONObject call(InetSocketAddress address, JSONObject message) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(address, TIMEOUT_MILLIS);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            BufferedWriter out = writerFor(socket);
+            out.write(message.toString());
+            out.newLine();
+            out.flush();
+            String line = readerFor(socket).readLine();
+            if (line == null) {
+                throw new IOException("No answer from " + address);
+            }
+            return new JSONObject(line);
+        }
+    }
+
+    private static BufferedReader readerFor(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static BufferedWriter writerFor(Socket socket) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static JSONObject request(String op) {
+        return new JSONObject().put("op", op);
+    }
+
+    private static JSONObject reply(boolean ok) {
+        return new JSONObject().put("ok", ok);
+    }
+
+    private static JSONObject addressJson(InetSocketAddress address) {
+        return new JSONObject().put("host", address.getHostString()).put("port", address.getPort());
+    }
+
+    /*
+     * EFFECTS: runs a node with its own engine on a loopback port until the process is stopped, then hands
+     *          its sessions to the rest of the cluster; args are the node id, the port, and optionally the
+     *          port of a running node to join
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        ClusterNode node = new ClusterNode(args[0], new SessionEngine(),
+                new InetSocketAddress(loopback, Integer.parseInt(args[1])));
+        if (args.length > 2) {
+            node.join(new InetSocketAddress(loopback, Integer.parseInt(args[2])));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                node.leave();
+            } catch (IOException e) {
+                System.err.println("Could not leave the cluster: " + e.getMessage());
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,101 @@
+package cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Represents a consistent-hash ring that assigns session ids to nodes.
+// Every node is placed on the ring at many points (virtual nodes), and an id belongs to the node at the
+// first point at or after the id's hash, wrapping around. Adding or removing a node therefore only moves
+// the ids between that node's points and their predecessors, about 1/n of all ids, and the virtual nodes
+// keep the share of each node close to even.
+public class HashRing {
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final int virtualNodes;
+    private final TreeMap<Long, String> points;
+
+    /*
+     * EFFECTS: creates an empty ring with the default number of virtual nodes per node
+     */
+    public HashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /*
+     * REQUIRES: virtualNodes > 0
+     * EFFECTS: creates an empty ring that places every node at virtualNodes points
+     */
+    public HashRing(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        this.points = new TreeMap<>();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: places node on the ring; does nothing if it is already there
+     */
+    public synchronized void addNode(String node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            points.putIfAbsent(hash(node + "#" + i), node);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: removes node from the ring; does nothing if it is not there
+     */
+    public synchronized void removeNode(String node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            points.remove(hash(node + "#" + i), node);
+        }
+    }
+
+    /*
+     * EFFECTS: returns the node that owns id, or null if the ring is empty
+     */
+    public synchronized String ownerOf(String id) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(id));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    /*
+     * EFFECTS: returns true if node is on the ring
+     */
+    public synchronized boolean contains(String node) {
+        return points.containsValue(node);
+    }
+
+    /*
+     * EFFECTS: returns the nodes on the ring, each once
+     */
+    public synchronized List<String> getNodes() {
+        List<String> nodes = new ArrayList<>();
+        for (String node : points.values()) {
+            if (!nodes.contains(node)) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    /*
+     * EFFECTS: returns a well-mixed 64-bit hash of key (FNV-1a followed by a murmur finalizer)
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
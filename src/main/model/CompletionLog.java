@@ -0,0 +1,158 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents the history of completed work phases: when each ended and how long it was.
+// Entries are kept in time order in fixed-size chunks of primitive arrays (a long[] of end times and an
+// int[] of durations per chunk), so an entry costs 12 bytes with no per-entry object, growing never copies
+// more than the first chunk (which starts small, so a short history stays small), and range queries
+// binary-search the end times. Entries normally arrive in time order and
+// are appended; one that arrives late (e.g. after a clock adjustment) is inserted in its place.
+// All methods are synchronized, so sessions may record into a log while reports query it.
+public class CompletionLog {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int FIRST_CHUNK_SIZE = 16;
+
+    private long[][] ends;
+    private int[][] durations;
+    private int chunks;
+    private int size;
+
+    /*
+     * EFFECTS: creates an empty log
+     */
+    public CompletionLog() {
+        this.ends = new long[1][];
+        this.durations = new int[1][];
+    }
+
+    /*
+     * REQUIRES: durationSeconds >= 0
+     * MODIFIES: this
+     * EFFECTS: records a work phase of durationSeconds that ended at endMillis (since the epoch)
+     */
+    public synchronized void record(long endMillis, int durationSeconds) {
+        if (size == capacity()) {
+            grow();
+        }
+        int index = size++;
+        while (index > 0 && endAt(index - 1) > endMillis) {
+            set(index, endAt(index - 1), durationAt(index - 1));
+            index--;
+        }
+        set(index, endMillis, durationSeconds);
+    }
+
+    /*
+     * EFFECTS: returns the number of recorded work phases
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /*
+     * REQUIRES: 0 <= index < size()
+     * EFFECTS: returns the end time (ms since the epoch) of the index-th work phase in time order
+     */
+    public synchronized long getEnd(int index) {
+        return endAt(index);
+    }
+
+    /*
+     * REQUIRES: 0 <= index < size()
+     * EFFECTS: returns the duration in seconds of the index-th work phase in time order
+     */
+    public synchronized int getDuration(int index) {
+        return durationAt(index);
+    }
+
+    /*
+     * EFFECTS: returns the number of work phases that ended in [fromMillis, toMillis)
+     */
+    public synchronized int countBetween(long fromMillis, long toMillis) {
+        return Math.max(firstAtOrAfter(toMillis) - firstAtOrAfter(fromMillis), 0);
+    }
+
+    /*
+     * EFFECTS: returns the total seconds of the work phases that ended in [fromMillis, toMillis)
+     */
+    public synchronized long workTimeBetween(long fromMillis, long toMillis) {
+        long total = 0;
+        int end = firstAtOrAfter(toMillis);
+        for (int i = firstAtOrAfter(fromMillis); i < end; i++) {
+            total += durationAt(i);
+        }
+        return total;
+    }
+
+    /*
+     * EFFECTS: returns the index of the first work phase that ended at or after millis, or size() if none did
+     */
+    public synchronized int firstAtOrAfter(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (endAt(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * EFFECTS: returns the bytes held by the log's arrays
+     */
+    public synchronized long getRetainedBytes() {
+        long bytes = 2 * (16 + 8L * ends.length);
+        for (int i = 0; i < chunks; i++) {
+            bytes += 16 + 8L * ends[i].length + 16 + 4L * durations[i].length;
+        }
+        return bytes;
+    }
+
+    /*
+     * EFFECTS: returns the number of entries the log can hold before it has to grow
+     */
+    private int capacity() {
+        return chunks == 0 ? 0 : ((chunks - 1) << CHUNK_BITS) + ends[chunks - 1].length;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: makes room for at least one more entry: doubles the first chunk until it is full size, then adds
+     *          full-size chunks, doubling the chunk tables when they are full
+     */
+    private void grow() {
+        if (chunks == 1 && ends[0].length < CHUNK_SIZE) {
+            ends[0] = Arrays.copyOf(ends[0], ends[0].length * 2);
+            durations[0] = Arrays.copyOf(durations[0], durations[0].length * 2);
+            return;
+        }
+        if (chunks == ends.length) {
+            ends = Arrays.copyOf(ends, chunks * 2);
+            durations = Arrays.copyOf(durations, chunks * 2);
+        }
+        int length = chunks == 0 ? FIRST_CHUNK_SIZE : CHUNK_SIZE;
+        ends[chunks] = new long[length];
+        durations[chunks] = new int[length];
+        chunks++;
+    }
+
+    private long endAt(int index) {
+        return ends[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    private int durationAt(int index) {
+        return durations[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    private void set(int index, long endMillis, int durationSeconds) {
+        ends[index >>> CHUNK_BITS][index & CHUNK_MASK] = endMillis;
+        durations[index >>> CHUNK_BITS][index & CHUNK_MASK] = durationSeconds;
+    }
+}
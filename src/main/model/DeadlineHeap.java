@@ -0,0 +1,134 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents a binary min-heap of nodes ordered by deadline, shared by the schedulers that keep their
+// pending work sorted by time. Each node records its own index in the heap, so re-keying or removing a
+// node costs O(log n) and allocates nothing. Deadlines are compared by difference, so they may be read
+// from a clock that wraps around, like System.nanoTime().
+// A heap is not thread-safe: its owner guards it.
+final class DeadlineHeap<T extends DeadlineHeap.Node> {
+    private Node[] heap;
+    private int size;
+
+    // Represents an element of a DeadlineHeap: its deadline, and its index while it is in a heap.
+    abstract static class Node {
+        long deadline;
+        int slot;
+    }
+
+    /*
+     * REQUIRES: initialCapacity > 0
+     * EFFECTS: creates an empty heap with room for initialCapacity nodes before it has to grow
+     */
+    DeadlineHeap(int initialCapacity) {
+        this.heap = new Node[initialCapacity];
+    }
+
+    /*
+     * EFFECTS: returns the number of nodes in the heap
+     */
+    int size() {
+        return size;
+    }
+
+    /*
+     * EFFECTS: returns the node with the earliest deadline, or null if the heap is empty
+     */
+    @SuppressWarnings("unchecked")
+    T peek() {
+        return (T) heap[0];
+    }
+
+    /*
+     * REQUIRES: node is not in the heap
+     * MODIFIES: this, node
+     * EFFECTS: adds node with the given deadline
+     */
+    void add(T node, long deadline) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        node.deadline = deadline;
+        siftUp(size++, node);
+    }
+
+    /*
+     * REQUIRES: node is in the heap
+     * MODIFIES: this, node
+     * EFFECTS: moves node to the place of its new deadline
+     */
+    void update(T node, long deadline) {
+        long previous = node.deadline;
+        node.deadline = deadline;
+        if (deadline - previous < 0) {
+            siftUp(node.slot, node);
+        } else {
+            siftDown(node.slot, node);
+        }
+    }
+
+    /*
+     * REQUIRES: node is in the heap
+     * MODIFIES: this
+     * EFFECTS: removes node from the heap
+     */
+    void remove(T node) {
+        int index = node.slot;
+        Node last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        siftDown(index, last);
+        if (heap[index] == last) {
+            siftUp(index, last);
+        }
+    }
+
+    /*
+     * MODIFIES: this, node
+     * EFFECTS: places node at index or above it, moving later parents down
+     */
+    private void siftUp(int index, Node node) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Node above = heap[parent];
+            if (node.deadline - above.deadline >= 0) {
+                break;
+            }
+            place(index, above);
+            index = parent;
+        }
+        place(index, node);
+    }
+
+    /*
+     * MODIFIES: this, node
+     * EFFECTS: places node at index or below it, moving earlier children up
+     */
+    private void siftDown(int index, Node node) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1].deadline - heap[child].deadline < 0) {
+                child++;
+            }
+            if (heap[child].deadline - node.deadline >= 0) {
+                break;
+            }
+            place(index, heap[child]);
+            index = child;
+        }
+        place(index, node);
+    }
+
+    /*
+     * MODIFIES: this, node
+     * EFFECTS: stores node at index and records the index in the node
+     */
+    private void place(int index, Node node) {
+        heap[index] = node;
+        node.slot = index;
+    }
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Represents a scheduler that runs PhaseTimers on a ScheduledExecutorService.
+// Deadlines are grouped into buckets of a fixed width (100 ms by default), and each bucket is one batch on
+// the executor, armed for the earliest deadline in it. When the batch runs it fires every timer that is
+// due, including those that come due while it runs, and puts the rest back armed for their own deadlines,
+// so no timer runs before its deadline. When a herd of sessions started within the same second reaches its
+// phase boundary together, the executor queues a few tasks per bucket instead of one per session, and each
+// run records the lateness of all the timers it fired (measured from each one's own deadline) at once.
+// Every schedule() adds a new entry to a bucket and cancel() just marks the timer; an entry that lost a
+// race with a later schedule() or cancel(), or whose timer has since moved to another scheduler, notices
+// from the generation and owner it was created for and does nothing.
+public class ExecutorScheduler implements SessionScheduler {
+    private static final long DEFAULT_BUCKET_MILLIS = 100;
+
+    private final ScheduledExecutorService executor;
+    private final SchedulerMetrics metrics;
+    private final long bucketNanos;
+    private final ConcurrentHashMap<Long, Batch> batches;
+
+    /*
+     * EFFECTS: creates a scheduler that runs timers on the given executor in 100 ms buckets
+     */
+    public ExecutorScheduler(ScheduledExecutorService executor) {
+        this(executor, DEFAULT_BUCKET_MILLIS);
+    }
+
+    /*
+     * REQUIRES: bucketMillis > 0
+     * EFFECTS: creates a scheduler that runs timers on the given executor, batching deadlines that fall in
+     *          the same bucketMillis-wide bucket; a timer never runs before its deadline
+     */
+    public ExecutorScheduler(ScheduledExecutorService executor, long bucketMillis) {
+        this.executor = executor;
+        this.metrics = new SchedulerMetrics();
+        this.bucketNanos = TimeUnit.MILLISECONDS.toNanos(bucketMillis);
+        this.batches = new ConcurrentHashMap<>();
+    }
+
+    /*
+     * EFFECTS: returns the executor that runs this scheduler's timers
+     */
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void schedule(PhaseTimer timer, long deadlineNanos) {
+        Pending pending;
+        long generation;
+        synchronized (timer) {
+            pending = pendingOf(timer);
+            generation = ++pending.generation;
+            timer.state = PhaseTimer.SCHEDULED;
+            timer.deadline = deadlineNanos;
+        }
+        enqueue(Math.floorDiv(deadlineNanos, bucketNanos), timer, pending, generation, deadlineNanos);
+    }
+
+    @Override
+    public void cancel(PhaseTimer timer) {
+        synchronized (timer) {
+            if (!(timer.handle instanceof Pending) || ((Pending) timer.handle).owner != this) {
+                return; // idle, or owned by another scheduler
+            }
+            ((Pending) timer.handle).generation++;
+            timer.state = PhaseTimer.IDLE;
+        }
+    }
+
+    /*
+     * EFFECTS: returns the number of buckets waiting to run
+     */
+    int getPendingBatchCount() {
+        return batches.size();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds the timer's entry to the bucket's batch, opening one if there is none, and arms the batch
+     *          to run at deadlineNanos if it is not yet armed for an earlier time
+     */
+    private void enqueue(long bucket, PhaseTimer timer, Pending pending, long generation, long deadlineNanos) {
+        batches.compute(bucket, (key, batch) -> {
+            Batch target = batch != null ? batch : new Batch();
+            target.add(timer, pending, generation, deadlineNanos);
+            if (!target.armed || deadlineNanos - target.armedFor < 0) {
+                target.armed = true;
+                target.armedFor = deadlineNanos;
+                long delay = deadlineNanos - System.nanoTime();
+                executor.schedule(() -> runBatch(key, target), delay, TimeUnit.NANOSECONDS);
+            }
+            return target;
+        });
+    }
+
+    /*
+     * REQUIRES: the timer's monitor is held
+     * MODIFIES: timer
+     * EFFECTS: returns this scheduler's bookkeeping for timer, creating it on first use
+     */
+    private Pending pendingOf(PhaseTimer timer) {
+        if (!(timer.handle instanceof Pending) || ((Pending) timer.handle).owner != this) {
+            timer.handle = new Pending(this);
+        }
+        return (Pending) timer.handle;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: unless batch was already run by an earlier arming, runs every timer in it that is due (checking
+     *          again until none comes due) and still scheduled for the generation it was added with, records
+     *          how late they ran, and puts the timers not yet due back into the bucket
+     */
+    private void runBatch(long bucket, Batch batch) {
+        if (!batches.remove(bucket, batch)) {
+            return;
+        }
+        long[] lateness = new long[batch.size];
+        int fired = 0;
+        int left = batch.size;
+        int checked;
+        do {
+            checked = left;
+            left = 0;
+            long now = System.nanoTime();
+            for (int i = 0; i < checked; i++) {
+                if (batch.deadlines[i] - now > 0) {
+                    batch.move(i, left++);
+                } else if (claim(batch.timers[i], batch.pendings[i], batch.generations[i])) {
+                    lateness[fired++] = System.nanoTime() - batch.deadlines[i];
+                    fire(batch.timers[i]);
+                }
+            }
+        } while (left > 0 && left != checked);
+        metrics.recordFires(lateness, fired);
+        requeue(bucket, batch, left);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: puts the first count entries of batch that are still current back into the bucket
+     */
+    private void requeue(long bucket, Batch batch, int count) {
+        for (int i = 0; i < count; i++) {
+            if (isCurrent(batch.timers[i], batch.pendings[i], batch.generations[i])) {
+                enqueue(bucket, batch.timers[i], batch.pendings[i], batch.generations[i], batch.deadlines[i]);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: returns true if timer is still scheduled by this scheduler for the given generation
+     */
+    private static boolean isCurrent(PhaseTimer timer, Pending pending, long generation) {
+        synchronized (timer) {
+            return timer.handle == pending && pending.generation == generation
+                    && timer.state == PhaseTimer.SCHEDULED;
+        }
+    }
+
+    /*
+     * MODIFIES: timer
+     * EFFECTS: marks timer idle and returns true if it is still scheduled by this scheduler for the given
+     *          generation; otherwise returns false
+     */
+    private static boolean claim(PhaseTimer timer, Pending pending, long generation) {
+        synchronized (timer) {
+            if (!isCurrent(timer, pending, generation)) {
+                return false;
+            }
+            timer.state = PhaseTimer.IDLE;
+            return true;
+        }
+    }
+
+    /*
+     * EFFECTS: runs timer, reporting anything it throws to the thread's uncaught exception handler
+     */
+    private static void fire(PhaseTimer timer) {
+        try {
+            timer.fire();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    // Per-timer state of an ExecutorScheduler, guarded by the timer's monitor.
+    private static final class Pending {
+        private final ExecutorScheduler owner;
+        private long generation;
+
+        private Pending(ExecutorScheduler owner) {
+            this.owner = owner;
+        }
+    }
+
+    // The timers due in one bucket, in the order they were scheduled, and the deadline the batch is armed for;
+    // only touched inside batches.compute until the batch is removed to run, then only by the running thread.
+    private static final class Batch {
+        private PhaseTimer[] timers = new PhaseTimer[8];
+        private Pending[] pendings = new Pending[8];
+        private long[] generations = new long[8];
+        private long[] deadlines = new long[8];
+        private int size;
+        private boolean armed;
+        private long armedFor;
+
+        private void add(PhaseTimer timer, Pending pending, long generation, long deadline) {
+            if (size == timers.length) {
+                timers = Arrays.copyOf(timers, size * 2);
+                pendings = Arrays.copyOf(pendings, size * 2);
+                generations = Arrays.copyOf(generations, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            timers[size] = timer;
+            pendings[size] = pending;
+            generations[size] = generation;
+            deadlines[size] = deadline;
+            size++;
+        }
+
+        private void move(int from, int to) {
+            timers[to] = timers[from];
+            pendings[to] = pendings[from];
+            generations[to] = generations[from];
+            deadlines[to] = deadlines[from];
+        }
+    }
+}
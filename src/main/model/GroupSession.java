@@ -0,0 +1,140 @@
+package model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Represents a synchronized pomodoro shared by a group of participants.
+// One PomodoroSession (the schedule) counts the phases for the whole group, so a room of any size costs
+// one timer; every work phase that ends is credited to the Statistics of each participant in the room
+// at that moment. Participants follow the phases by subscribing to getSchedule(). A group can be limited
+// to a number of work phases, after which the schedule is reset to a fresh, stopped work phase.
+// Participants' Statistics are credited on the scheduler's thread.
+public class GroupSession {
+    private final PomodoroSession schedule;
+    private final int cycles;
+    private final ConcurrentHashMap<String, Statistics> participants;
+    private volatile long completedAtStart;
+
+    /*
+     * REQUIRES: every duration is a positive integer and cycles >= 0
+     * EFFECTS: creates an empty, stopped group on the shared TimingWheel whose schedule runs cycles work phases
+     *          (0 means no limit) with the given durations in minutes
+     */
+    public GroupSession(int workDuration, int shortBreakDuration, int longBreakDuration, int cycles) {
+        this(workDuration, shortBreakDuration, longBreakDuration, cycles, TimingWheel.shared());
+    }
+
+    /*
+     * REQUIRES: every duration is a positive integer and cycles >= 0
+     * EFFECTS: like the constructor above, but the schedule is driven by the given scheduler
+     */
+    public GroupSession(int workDuration, int shortBreakDuration, int longBreakDuration, int cycles,
+                        SessionScheduler scheduler) {
+        this.schedule = new PomodoroSession(workDuration, shortBreakDuration, longBreakDuration, new Statistics(),
+                scheduler);
+        this.cycles = cycles;
+        this.participants = new ConcurrentHashMap<>();
+        schedule.subscribe(this::onScheduleEvent);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds a participant with fresh statistics under id and returns the statistics;
+     *          throws IllegalArgumentException if the participant is already in the group
+     */
+    public Statistics join(String id) {
+        Statistics stat = new Statistics();
+        join(id, stat);
+        return stat;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds a participant under id whose work is credited to stat;
+     *          throws IllegalArgumentException if the participant is already in the group
+     */
+    public void join(String id, Statistics stat) {
+        if (participants.putIfAbsent(id, stat) != null) {
+            throw new IllegalArgumentException("Participant already in the group: " + id);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: removes the participant under id and returns its statistics, or null if there is none
+     */
+    public Statistics leave(String id) {
+        return participants.remove(id);
+    }
+
+    /*
+     * EFFECTS: returns the statistics of the participant under id, or null if there is none
+     */
+    public Statistics getParticipantStatistics(String id) {
+        return participants.get(id);
+    }
+
+    /*
+     * EFFECTS: returns the number of participants in the group
+     */
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: starts a fresh work phase for the whole group and restarts the count of work phases
+     */
+    public void start() {
+        completedAtStart = schedule.getStatistics().getCompletedSessions();
+        schedule.startWork();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops the group's countdown
+     */
+    public void stop() {
+        schedule.stop();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: ends the group's work phase now, crediting every participant, and starts the matching break
+     */
+    public void endWork() {
+        schedule.endWork();
+    }
+
+    /*
+     * EFFECTS: returns the session that counts the group's phases; subscribe to it to follow the group
+     */
+    public PomodoroSession getSchedule() {
+        return schedule;
+    }
+
+    /*
+     * EFFECTS: returns the number of work phases completed since the last start()
+     */
+    public long getCompletedCycles() {
+        return schedule.getStatistics().getCompletedSessions() - completedAtStart;
+    }
+
+    /*
+     * EFFECTS: called on every event of the schedule; credits the participants for a finished work phase
+     *          and resets the schedule once the last work phase is done
+     */
+    private void onScheduleEvent(PomodoroSession session, SessionEventType type) {
+        if (type != SessionEventType.WORK_ENDED) {
+            return;
+        }
+        int workDuration = session.getWorkDuration();
+        long endMillis = session.getScheduler().getClock().currentTimeMillis();
+        for (Statistics stat : participants.values()) {
+            stat.recordCompletion(endMillis, workDuration);
+        }
+        if (cycles > 0 && getCompletedCycles() >= cycles) {
+            session.resetTimer();
+            session.setCurrentDuration(workDuration);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Represents a histogram of non-negative durations (nanoseconds unless its owner says otherwise) with a
+// fixed relative precision. Buckets are log-linear: every power of two is split into SUB_BUCKETS equal
+// buckets, so any value is reported within about 3% of what was recorded, from single nanoseconds up to
+// centuries, in a fixed 15 KB of counters. A histogram made with a highest value only has the buckets up
+// to it (about 4 KB for a million), which suits many small per-session histograms.
+// Recording is lock-free and allocation-free, so scheduler threads can record every timer they run while
+// readers take percentiles concurrently.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long highestValue;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong max;
+
+    /*
+     * EFFECTS: creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this(Long.MAX_VALUE);
+    }
+
+    /*
+     * REQUIRES: highestValue > 0
+     * EFFECTS: creates an empty histogram that records values above highestValue as highestValue
+     */
+    public LatencyHistogram(long highestValue) {
+        this.highestValue = highestValue;
+        this.counts = new AtomicLongArray(Math.min(indexOf(highestValue) + 1, BUCKETS));
+        this.count = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: records one duration; negative durations are recorded as 0, and ones above the highest value as it
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /*
+     * REQUIRES: times >= 0
+     * MODIFIES: this
+     * EFFECTS: records the same duration the given number of times at the cost of recording it once
+     */
+    public void record(long nanos, long times) {
+        long value = clamp(nanos);
+        counts.addAndGet(indexOf(value), times);
+        count.addAndGet(times);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /*
+     * REQUIRES: 0 <= n <= nanos.length
+     * MODIFIES: this
+     * EFFECTS: records the first n durations in nanos; neighbouring durations that fall into the same bucket
+     *          are recorded together, so a batch of similar durations costs about one record
+     */
+    public void recordAll(long[] nanos, int n) {
+        int i = 0;
+        while (i < n) {
+            int index = indexOf(clamp(nanos[i]));
+            long runMax = clamp(nanos[i]);
+            int end = i + 1;
+            while (end < n && indexOf(clamp(nanos[end])) == index) {
+                runMax = Math.max(runMax, clamp(nanos[end]));
+                end++;
+            }
+            record(runMax, end - i);
+            i = end;
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds everything recorded in other to this histogram; nothing is lost unless other records
+     *          values above this histogram's highest value, which are added as it
+     */
+    public void add(LatencyHistogram other) {
+        int last = counts.length() - 1;
+        for (int i = 0; i < other.counts.length(); i++) {
+            long n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(Math.min(i, last), n);
+            }
+        }
+        count.addAndGet(other.count.get());
+        max.accumulateAndGet(Math.min(other.max.get(), highestValue), Math::max);
+    }
+
+    /*
+     * EFFECTS: returns the recorded durations as parallel arrays of values and counts, one pair per non-empty
+     *          bucket; recording each value that many times rebuilds the same buckets and maximum
+     */
+    public JSONObject toJson() {
+        JSONArray values = new JSONArray();
+        JSONArray times = new JSONArray();
+        long highest = max.get();
+        for (int i = 0; i < counts.length(); i++) {
+            long n = counts.get(i);
+            if (n != 0) {
+                values.put(Math.min(highestValueIn(i), highest));
+                times.put(n);
+            }
+        }
+        JSONObject json = new JSONObject();
+        json.put("values", values);
+        json.put("counts", times);
+        return json;
+    }
+
+    /*
+     * REQUIRES: 0 <= percentile <= 100
+     * EFFECTS: returns the smallest duration such that the given percentage of recorded durations are no
+     *          larger than it (to the histogram's precision), or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /*
+     * EFFECTS: returns the median recorded duration
+     */
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    /*
+     * EFFECTS: returns the 99th percentile of the recorded durations
+     */
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    /*
+     * EFFECTS: returns the 99.9th percentile of the recorded durations
+     */
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /*
+     * EFFECTS: returns the largest recorded duration, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /*
+     * EFFECTS: returns the number of recorded durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /*
+     * EFFECTS: returns nanos, raised to 0 or lowered to the highest value if it lies outside them
+     */
+    private long clamp(long nanos) {
+        return Math.max(Math.min(nanos, highestValue), 0);
+    }
+
+    /*
+     * REQUIRES: value >= 0
+     * EFFECTS: returns the bucket that holds value
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /*
+     * EFFECTS: returns the largest value that falls into the given bucket
+     */
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.Writable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Represents how long work phases and breaks really ran, from the moment a phase started to the moment it
+// ended (time spent stopped in between left out), and how often a running phase was cut short by stop() or
+// resetTimer(). Durations go into two LatencyHistograms of seconds, so a session's memory stays fixed
+// however many phases it runs, and histograms of many sessions add up losslessly for percentiles over all
+// of them. They are saved with the statistics' JSON, so they follow a session that is saved, hibernated or
+// moved to another node.
+public class PhaseDurations implements Writable {
+    public static final long MAX_SECONDS = 1L << 20; // about 12 days; longer phases are recorded as this
+
+    private final LatencyHistogram work;
+    private final LatencyHistogram breaks;
+    private final AtomicLong earlyStops;
+
+    /*
+     * EFFECTS: creates empty histograms with no early stops
+     */
+    public PhaseDurations() {
+        this.work = new LatencyHistogram(MAX_SECONDS);
+        this.breaks = new LatencyHistogram(MAX_SECONDS);
+        this.earlyStops = new AtomicLong();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: records a work phase that lasted the given number of seconds
+     */
+    public void recordWork(long seconds) {
+        work.record(seconds);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: records a break that lasted the given number of seconds
+     */
+    public void recordBreak(long seconds) {
+        breaks.record(seconds);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: counts one running phase stopped or reset before it ended
+     */
+    public void recordEarlyStop() {
+        earlyStops.incrementAndGet();
+    }
+
+    /*
+     * REQUIRES: count >= 0
+     * MODIFIES: this
+     * EFFECTS: counts count running phases stopped or reset before they ended
+     */
+    public void addEarlyStops(long count) {
+        earlyStops.addAndGet(count);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds everything recorded in other to this
+     */
+    public void add(PhaseDurations other) {
+        work.add(other.work);
+        breaks.add(other.breaks);
+        earlyStops.addAndGet(other.earlyStops.get());
+    }
+
+    /*
+     * EFFECTS: returns the histogram of work phase durations in seconds
+     */
+    public LatencyHistogram getWork() {
+        return work;
+    }
+
+    /*
+     * EFFECTS: returns the histogram of break durations in seconds
+     */
+    public LatencyHistogram getBreaks() {
+        return breaks;
+    }
+
+    /*
+     * EFFECTS: returns the number of running phases stopped or reset before they ended
+     */
+    public long getEarlyStops() {
+        return earlyStops.get();
+    }
+
+    /*
+     * EFFECTS: returns the histograms and the early stops as a JSON object
+     */
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("work", work.toJson());
+        json.put("breaks", breaks.toJson());
+        json.put("earlyStops", earlyStops.get());
+        return json;
+    }
+}
@@ -0,0 +1,45 @@
+package model;
+
+// Represents a reusable one-shot timer that a SessionScheduler runs at a deadline.
+// A session keeps one PhaseTimer for its whole life and re-schedules it on every phase change,
+// so no timer objects or threads are created per transition.
+public class PhaseTimer extends DeadlineHeap.Node {
+    static final int IDLE = 0;
+    static final int SCHEDULED = 1;
+    static final int PENDING = 2;
+
+    private final Runnable action;
+
+    // bookkeeping owned by the scheduler the timer is registered with;
+    // the slot fields are used by TimingWheel (and slot, inherited, by SimulationScheduler's heap),
+    // handle records the owning scheduler or its own per-timer object, and the inherited deadline is the time
+    // (on the scheduler's clock) the timer was last scheduled for, which the scheduler measures lateness against
+    volatile int state;
+    long expireTick;
+    int level;
+    PhaseTimer prev;
+    PhaseTimer next;
+    Object handle;
+
+    /*
+     * EFFECTS: creates an idle timer that runs action every time it expires
+     */
+    public PhaseTimer(Runnable action) {
+        this.action = action;
+        this.state = IDLE;
+    }
+
+    /*
+     * EFFECTS: returns true if the timer is waiting for its deadline
+     */
+    public boolean isScheduled() {
+        return state != IDLE;
+    }
+
+    /*
+     * EFFECTS: runs the timer's action on the calling thread
+     */
+    void fire() {
+        action.run();
+    }
+}
@@ -5,22 +5,43 @@ import model.EventLog;
 import org.json.JSONObject;
 import persistence.Writable;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Represents a Pomodoro work session with configurable work and break durations.
+// The durations and the long break interval form an immutable SessionConfig that can be swapped while
+// the session runs, without restarting its countdown.
 // Allows starting, stopping, and resetting of the timer and keeps track of session statistics.
+// The countdown is driven by a SessionScheduler (by default the TimingWheel shared by all sessions),
+// so a session owns one reusable PhaseTimer instead of a Timer thread of its own. Time is read from the
+// scheduler's SessionClock, so a session on a SimulationScheduler runs on virtual time.
+// Phase, running flag, deadline or time left and cycle count live in one packed AtomicLong (see SessionState):
+// reads are a single volatile load, and every transition is a compare-and-set, so a stop() or resetTimer()
+// from the UI can never interleave with a phase change made by the scheduler thread. A phase that ends is
+// first claimed as the next phase, stopped at its full length, and only then started; stop(), startTimer()
+// and resetTimer() all move the cycle on, so one made in between wins over the pending start.
+// Observers subscribe a SessionListener and are pushed typed events when phases start and end,
+// plus TICK events at the granularity they ask for, instead of polling the session.
+// When a phase ends, how long it really ran (time spent stopped in between left out) is recorded in the
+// statistics' PhaseDurations, as is every running phase cut short by stop() or resetTimer().
 public class PomodoroSession implements Writable {
     // delete or rename this class!
-    private final int workDuration;
-    private final int shortBreakDuration;
-    private final int longBreakDuration;
+    private volatile SessionConfig config;
 
-    private int currentDuration;
-    private boolean isRunning;
-    private boolean isOnBreak;
+    private final AtomicLong state;
+    private final SessionClock clock;
+    private final long originNanos;
+    private volatile long phaseStartMillis;
+    private volatile long pausedAtMillis;
     private Statistics stat;
-    private Timer timer;
+    private volatile SessionScheduler scheduler;
+    private final PhaseTimer phaseTimer;
+    private final Object subscriptionLock;
+    private final Object configLock;
+    private volatile SessionSubscription[] subscriptions;
+    private volatile long timerRuns;
+    private long timerRunsTaken;
 
     /*
      * REQUIRES: every duration is a positive integer
@@ -28,73 +49,169 @@ public class PomodoroSession implements Writable {
      * EFFECTS: Initializes a new Pomodoro session with the given work duration.
      *          If workDuration is negative, sets it to the default value.
      *          Each boolean value is set "false"
-     *          set "Timer" class as real timer, or countdown clock
+     *          the countdown is driven by the shared TimingWheel
      */
     public PomodoroSession(int setWorkDuration, int setShortBreakDuration, int setLongBreakDuration, Statistics stat) {
-        if (setWorkDuration < 0) {
-            setWorkDuration = 25; //default
-        }
-        if (setShortBreakDuration < 0) {
-            setShortBreakDuration = 5; //default
-        }
-        if (setLongBreakDuration < 0) {
-            setLongBreakDuration = 10; //default
-        }
-        this.workDuration = setWorkDuration * 60; //from min to seconds
-        this.shortBreakDuration = setShortBreakDuration * 60;
-        this.longBreakDuration = setLongBreakDuration * 60;
+        this(setWorkDuration, setShortBreakDuration, setLongBreakDuration, stat, TimingWheel.shared());
+    }
+
+    /*
+     * REQUIRES: every duration is a positive integer
+     * MODIFIES: this
+     * EFFECTS: Initializes a new Pomodoro session like the constructor above,
+     *          but drives its countdown with the given scheduler and measures time with its clock
+     */
+    public PomodoroSession(int setWorkDuration, int setShortBreakDuration, int setLongBreakDuration, Statistics stat,
+                           SessionScheduler scheduler) {
+        this(new SessionConfig(setWorkDuration, setShortBreakDuration, setLongBreakDuration,
+                SessionConfig.DEFAULT_LONG_BREAK_INTERVAL), stat, scheduler);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Initializes a new, stopped Pomodoro session with the given settings,
+     *          driven by the given scheduler and measuring time with its clock
+     */
+    public PomodoroSession(SessionConfig config, Statistics stat, SessionScheduler scheduler) {
+        this.config = config;
         this.stat = stat;
-        this.isRunning = false;
-        this.isOnBreak = false;
-        this.currentDuration = workDuration;
-        this.timer = new Timer();
+        this.clock = scheduler.getClock();
+        this.originNanos = clock.nanoTime();
+        this.phaseStartMillis = -1;
+        this.pausedAtMillis = -1;
+        this.state = new AtomicLong(SessionState.pack(config.getWorkDuration() * 1000L, SessionPhase.WORK, false, 0));
+        this.scheduler = scheduler;
+        this.phaseTimer = new PhaseTimer(this::onDeadline);
+        this.subscriptionLock = new Object();
+        this.configLock = new Object();
+        this.subscriptions = new SessionSubscription[0];
     }
 
     /*
      * MODIFIES: this
      * EFFECTS: everything will begin from this method
-     *          it will call startTimer()
+     *          it starts the timer for a fresh work phase
      */
     public void startWork() {
-        isRunning = true;
-        isOnBreak = false;
-        currentDuration = workDuration;
-        startTimer();
+        beginPhase(SessionPhase.WORK);
     }
 
     /*
-     * MODIFIES: this, Time
+     * MODIFIES: this, scheduler
      * EFFECTS: it can start every session with another methods
-     *          this is the core timer
-     *          when currentDuration is over, it will move to endWork method to take a break
+     *          this is the core timer: it fixes the deadline of the current phase from the time left
+     *          and asks the scheduler for a single wakeup at that deadline,
+     *          where it will move to endWork method to take a break
      */
-    // https://www.delftstack.com/ja/howto/java/countdown-timer-java/
     public void startTimer() {
-        if (!isRunning) {
-            isRunning = true;  // for stop
-        }
-        if (timer != null) {
-            timer.cancel();
-            timer = new Timer();
-        }  // test for when timer is null
-        assert timer != null; //I don't know why it is necessary
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                currentDuration = currentDuration - 1; //every second
-                if (currentDuration <= 0) {  //test for when timer is running out
-                    timer.cancel();
-                    if (!isOnBreak) {
-//                        isOnBreak = false; // for break
-                        endWork();
-                    } else {
-//                        JOptionPane.showMessageDialog(null, "Break is done",
-//                        "let's study", JOptionPane.INFORMATION_MESSAGE);
-                        startWork(); //?????
-                    }
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = nextCycle(withRunning(current, true));
+        } while (!state.compareAndSet(current, next));
+        if (!SessionState.isRunning(current)) {
+            resumePhaseClock();
+        }
+        scheduler.schedule(phaseTimer, toNanos(SessionState.time(next)));
+        armAllTicks(next);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: moves the start of the current phase forward by the time it was stopped, so that only the time it
+     *          ran counts towards its duration
+     */
+    private void resumePhaseClock() {
+        long paused = pausedAtMillis;
+        pausedAtMillis = -1;
+        long start = phaseStartMillis;
+        if (paused >= 0 && start >= 0) {
+            phaseStartMillis = start + nowMillis() - paused;
+        }
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: starts a fresh running phase, whatever the session was doing before
+     */
+    private void beginPhase(SessionPhase phase) {
+        long now = nowMillis();
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = SessionState.pack(now + durationOf(phase) * 1000L, phase, true, SessionState.cycle(current) + 1);
+        } while (!state.compareAndSet(current, next));
+        phaseStartMillis = now;
+        pausedAtMillis = -1;
+        scheduler.schedule(phaseTimer, toNanos(SessionState.time(next)));
+        phaseStarted(next);
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: starts the claimed phase, with the time it has left (a reconfigure() may have resized it), only if
+     *          the session is still stopped in the claimed cycle, so that a stop(), startTimer() or resetTimer()
+     *          that raced with a phase change wins
+     */
+    private void advancePhase(long claimed) {
+        long now = nowMillis();
+        long current;
+        long next;
+        do {
+            current = state.get();
+            if (SessionState.cycle(current) != SessionState.cycle(claimed) || SessionState.isRunning(current)) {
+                return;
+            }
+            next = SessionState.pack(now + SessionState.time(current), SessionState.phase(current), true,
+                    SessionState.cycle(current) + 1);
+        } while (!state.compareAndSet(current, next));
+        phaseStartMillis = now;
+        pausedAtMillis = -1;
+        scheduler.schedule(phaseTimer, toNanos(SessionState.time(next)));
+        phaseStarted(next);
+    }
+
+    /*
+     * EFFECTS: tells subscribers that the phase of the given running state has started and arms their ticks
+     */
+    private void phaseStarted(long running) {
+        boolean onBreak = SessionState.phase(running).isBreak();
+        publish(onBreak ? SessionEventType.BREAK_STARTED : SessionEventType.WORK_STARTED);
+        armAllTicks(running);
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: called by the scheduler at the phase deadline; moves to the next phase.
+     *          A wakeup for a stopped session is ignored, and one that arrives before a deadline
+     *          moved by setCurrentDuration is re-armed for the new deadline.
+     */
+    private void onDeadline() {
+        countTimerRun();
+        while (true) {
+            long current = state.get();
+            if (!SessionState.isRunning(current)) {
+                return;
+            }
+            if (nowMillis() < SessionState.time(current)) {
+                scheduler.schedule(phaseTimer, toNanos(SessionState.time(current)));
+                return;
+            }
+            SessionPhase ended = SessionState.phase(current);
+            long claimed = claimNextPhase(current, ended);
+            if (state.compareAndSet(current, claimed)) {
+                phaseEnded(ended);
+                if (ended == SessionPhase.WORK) {
+                    finishWork(claimed);
+                } else {
+                    publish(SessionEventType.BREAK_ENDED);
+                    advancePhase(claimed);
                 }
+                return;
             }
-        }, 0, 1000);
+        }
     }
 
     /*
@@ -105,15 +222,55 @@ public class PomodoroSession implements Writable {
      *          Otherwise, shortBreak
      */
     public void endWork() {
-        isRunning = false; //stop workSession
-        timer.cancel();
+        long current;
+        long claimed;
+        do {
+            current = state.get();
+            claimed = claimNextPhase(current, SessionPhase.WORK);
+        } while (!state.compareAndSet(current, claimed));
+        phaseEnded(SessionState.phase(current));
+        finishWork(claimed);
+    }
+
+    /*
+     * MODIFIES: this, Statistics
+     * EFFECTS: credits the finished work phase and starts the break it was claimed as
+     */
+    private void finishWork(long claimed) {
+        scheduler.cancel(phaseTimer);
+        stat.recordCompletion(clock.currentTimeMillis(), config.getWorkDuration());
+        publish(SessionEventType.WORK_ENDED);
+        advancePhase(claimed);
+    }
+
+    /*
+     * EFFECTS: returns the state that follows the end of the given phase: the next phase, stopped with its
+     *          full length left, counting one more transition; after work that is the break the cadence picks
+     *          once the work is credited
+     */
+    private long claimNextPhase(long current, SessionPhase ended) {
+        SessionConfig settings = config;
+        SessionPhase next = ended == SessionPhase.WORK
+                ? settings.breakAfter(stat.getCompletedSessions() + 1) : SessionPhase.WORK;
+        return SessionState.pack(settings.durationOf(next) * 1000L, next, false, SessionState.cycle(current) + 1);
+    }
 
-        stat.addCompletedSession();
-        stat.addTotalWorkTime(workDuration);
-        if (stat.getCompletedSessions() % 3 == 0) {
-            startLongBreak();
+    /*
+     * MODIFIES: this, Statistics
+     * EFFECTS: records how long the phase that just ended ran, in whole seconds, unless its start is unknown
+     *          (e.g. it was restored or caught up); the phase claimed after it has not started yet
+     */
+    private void phaseEnded(SessionPhase phase) {
+        long start = phaseStartMillis;
+        phaseStartMillis = -1;
+        if (start < 0) {
+            return;
+        }
+        long seconds = (nowMillis() - start + 500) / 1000;
+        if (phase.isBreak()) {
+            stat.getPhaseDurations().recordBreak(seconds);
         } else {
-            startShortBreak();
+            stat.getPhaseDurations().recordWork(seconds);
         }
     }
 
@@ -122,12 +279,9 @@ public class PomodoroSession implements Writable {
      * EFFECTS: it can start shortBreakSession with startTimer method
      */
     public void startShortBreak() {
-        isRunning = true;
-        isOnBreak = true;
-        currentDuration = shortBreakDuration;
 //        JOptionPane.showMessageDialog(null, "short break begins", "let's take a break",
 //        JOptionPane.INFORMATION_MESSAGE);
-        startTimer();
+        beginPhase(SessionPhase.SHORT_BREAK);
     }
 
     /*
@@ -135,75 +289,258 @@ public class PomodoroSession implements Writable {
      * EFFECTS: it can start longBreakSession with startTimer method
      */
     public void startLongBreak() {
-        isRunning = true;
-        isOnBreak = true;
-        currentDuration = longBreakDuration;
 //        JOptionPane.showMessageDialog(null, "long break begins", "let's take a break",
 //        JOptionPane.INFORMATION_MESSAGE);
-        startTimer();
+        beginPhase(SessionPhase.LONG_BREAK);
     }
 
     /*
      * MODIFIES: this
-     * EFFECTS: Stops the current timer.
+     * EFFECTS: Stops the current timer; stopping a running phase counts as an early stop.
+     *          A phase that was about to start is left stopped at its full length.
      */
     public void stop() {
-        isRunning = false;
-        timer.cancel();
+        long current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, nextCycle(withRunning(current, false))));
+        scheduler.cancel(phaseTimer);
+        disarmAllTicks();
+        if (SessionState.isRunning(current)) {
+            pausedAtMillis = nowMillis();
+            stat.getPhaseDurations().recordEarlyStop();
+        }
+    }
+
+    /*
+     * MODIFIES: scheduler
+     * EFFECTS: Cancels the countdown and the ticks without stopping the session: its state is left as it is and
+     *          nothing counts as an early stop, so it can be handed to another owner (e.g. saved and restored on
+     *          another node, which catches up on the time in between).
+     */
+    public void detach() {
+        scheduler.cancel(phaseTimer);
+        disarmAllTicks();
     }
 
     /*
      * MODIFIES: this
-     * EFFECTS: Resets and stops the timer.
+     * EFFECTS: Resets and stops the timer; resetting a running phase counts as an early stop.
      */
     public void resetTimer() {
-        timer.cancel();
-        isRunning = false;
-        isOnBreak = false;
+        scheduler.cancel(phaseTimer);
+        disarmAllTicks();
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = SessionState.pack(SessionState.time(withRunning(current, false)), SessionPhase.WORK, false,
+                    SessionState.cycle(current) + 1);
+        } while (!state.compareAndSet(current, next));
+        phaseStartMillis = -1;
+        pausedAtMillis = -1;
+        if (SessionState.isRunning(current)) {
+            stat.getPhaseDurations().recordEarlyStop();
+        }
 //        stat = new Statistics();
-        timer = new Timer();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: registers listener for phase events only
+     */
+    public SessionSubscription subscribe(SessionListener listener) {
+        return subscribe(listener, 0);
+    }
+
+    /*
+     * REQUIRES: tickMillis >= 0
+     * MODIFIES: this
+     * EFFECTS: registers listener for phase events and, if tickMillis > 0, a TICK event every tickMillis
+     *          milliseconds of the countdown while the session is running
+     */
+    public SessionSubscription subscribe(SessionListener listener, long tickMillis) {
+        SessionSubscription subscription = new SessionSubscription(this, listener, tickMillis);
+        synchronized (subscriptionLock) {
+            SessionSubscription[] grown = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            grown[subscriptions.length] = subscription;
+            subscriptions = grown;
+        }
+        armTicks(subscription);
+        return subscription;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: removes subscription from this session, if present
+     */
+    void unsubscribe(SessionSubscription subscription) {
+        synchronized (subscriptionLock) {
+            SessionSubscription[] current = subscriptions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == subscription) {
+                    SessionSubscription[] shrunk = Arrays.copyOf(current, current.length - 1);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    subscriptions = shrunk;
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: passes an event to every subscriber; a listener that throws is reported to the thread's
+     *          uncaught exception handler and does not stop the others or the scheduler
+     */
+    private void publish(SessionEventType type) {
+        for (SessionSubscription subscription : subscriptions) {
+            try {
+                subscription.deliver(type);
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: scheduler
+     * EFFECTS: schedules the next TICK of subscription if the session is running
+     */
+    void armTicks(SessionSubscription subscription) {
+        long current = state.get();
+        if (SessionState.isRunning(current)) {
+            subscription.arm(scheduler, toNanos(SessionState.time(current)), clock.nanoTime());
+        }
+    }
+
+    /*
+     * MODIFIES: scheduler
+     * EFFECTS: schedules the next TICK of every subscription for the given running state
+     */
+    private void armAllTicks(long running) {
+        long deadline = toNanos(SessionState.time(running));
+        long now = clock.nanoTime();
+        for (SessionSubscription subscription : subscriptions) {
+            subscription.arm(scheduler, deadline, now);
+        }
+    }
+
+    /*
+     * MODIFIES: scheduler
+     * EFFECTS: cancels the pending TICK of every subscription
+     */
+    private void disarmAllTicks() {
+        for (SessionSubscription subscription : subscriptions) {
+            subscription.disarm(scheduler);
+        }
+    }
+
+    /*
+     * EFFECTS: returns the given state counting one more transition
+     */
+    private static long nextCycle(long current) {
+        return SessionState.pack(SessionState.time(current), SessionState.phase(current),
+                SessionState.isRunning(current), SessionState.cycle(current) + 1);
+    }
+
+    /*
+     * EFFECTS: returns the given state with the running flag set as requested, turning the time left
+     *          into a deadline when starting and the deadline back into the time left when stopping
+     */
+    private long withRunning(long current, boolean running) {
+        if (SessionState.isRunning(current) == running) {
+            return current;
+        }
+        long time = SessionState.time(current);
+        long converted = running ? nowMillis() + time : Math.max(time - nowMillis(), 0);
+        return SessionState.pack(converted, SessionState.phase(current), running, SessionState.cycle(current));
+    }
+
+    /*
+     * EFFECTS: returns the configured length of the given phase in seconds
+     */
+    private int durationOf(SessionPhase phase) {
+        return config.durationOf(phase);
+    }
+
+    /*
+     * EFFECTS: returns the milliseconds elapsed on the session's clock since this session was created
+     */
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - originNanos);
+    }
+
+    /*
+     * EFFECTS: converts a time relative to this session's origin into a reading of the session's clock
+     */
+    private long toNanos(long millis) {
+        return originNanos + TimeUnit.MILLISECONDS.toNanos(millis);
     }
 
     /*
      * EFFECTS: Returns the work duration of the session.
      */
     public int getWorkDuration() {
-        return workDuration;
+        return config.getWorkDuration();
     }
 
     /*
      * EFFECTS: Returns the short break duration of the session.
      */
     public int getShortBreakDuration() {
-        return shortBreakDuration;
+        return config.getShortBreakDuration();
     }
 
     /*
      * EFFECTS: Returns the long break duration of the session.
      */
     public int getLongBreakDuration() {
-        return longBreakDuration;
+        return config.getLongBreakDuration();
     }
 
     /*
-     * EFFECTS: Returns the current duration left on the timer.
+     * EFFECTS: Returns the current duration left on the timer in whole seconds, rounded up.
+     *          While running it is computed from the phase deadline, so it is exact at any moment.
      */
     public int getCurrentDuration() {
-        return currentDuration;
+        long current = state.get();
+        long left = SessionState.time(current);
+        if (SessionState.isRunning(current)) {
+            left -= nowMillis();
+        }
+        if (left <= 0) {
+            return 0;
+        }
+        return (int) ((left + 999) / 1000);
     }
 
     /*
      * EFFECTS: Returns true if the session is currently running, false otherwise.
      */
     public boolean isRunning() {
-        return isRunning;
+        return SessionState.isRunning(state.get());
     }
 
     /*
      * EFFECTS: Returns true if the session is currently on a break, false otherwise.
      */
     public boolean isOnBreak() {
-        return isOnBreak;
+        return SessionState.phase(state.get()).isBreak();
+    }
+
+    /*
+     * EFFECTS: Returns the phase the session is currently in.
+     */
+    public SessionPhase getPhase() {
+        return SessionState.phase(state.get());
+    }
+
+    /*
+     * EFFECTS: Returns the number of phase transitions so far (wraps at 2^20).
+     */
+    public long getCycle() {
+        return SessionState.cycle(state.get());
     }
 
     public Statistics getStatistics() {
@@ -212,28 +549,204 @@ public class PomodoroSession implements Writable {
 
     /*
      * MODIFIES: this
-     * EFFECTS: Sets the timer for the session.
+     * EFFECTS: counts one run of the session's phase timer or of a subscription's tick timer; only the thread
+     *          that drives the session counts, so the count may miss a run made during a move to another scheduler
+     */
+    void countTimerRun() {
+        timerRuns++;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: returns how many of the session's timers ran since the last call; only one thread may call it
+     */
+    long takeTimerRuns() {
+        long runs = timerRuns;
+        long taken = runs - timerRunsTaken;
+        timerRunsTaken = runs;
+        return taken;
+    }
+
+    /*
+     * EFFECTS: Returns the clock the session measures time with.
+     */
+    public SessionClock getClock() {
+        return clock;
+    }
+
+    /*
+     * EFFECTS: Returns the scheduler that currently drives the session.
+     */
+    SessionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /*
+     * REQUIRES: timer (or the shared TimingWheel if it is null) uses the same clock as the session
+     * MODIFIES: this
+     * EFFECTS: Sets the scheduler that drives the session's countdown;
+     *          null falls back to the shared TimingWheel. A running countdown moves to the new scheduler.
      */
-    public void setTimer(Timer timer) {
-        this.timer = timer;
+    public void setTimer(SessionScheduler timer) {
+        SessionScheduler next = timer != null ? timer : TimingWheel.shared();
+        boolean wasScheduled = phaseTimer.isScheduled();
+        scheduler.cancel(phaseTimer);
+        disarmAllTicks();
+        scheduler = next;
+        if (wasScheduled) {
+            long current = state.get();
+            scheduler.schedule(phaseTimer, toNanos(SessionState.time(current)));
+            armAllTicks(current);
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: sets the current duration
+    // EFFECTS: sets the current duration (in seconds); a running phase now ends that far from now
     public void setCurrentDuration(int currentDuration) {
-        this.currentDuration = currentDuration;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long time = currentDuration * 1000L;
+            if (SessionState.isRunning(current)) {
+                time += nowMillis();
+            }
+            next = SessionState.pack(time, SessionState.phase(current), SessionState.isRunning(current),
+                    SessionState.cycle(current));
+        } while (!state.compareAndSet(current, next));
+        if (SessionState.isRunning(next) && phaseTimer.isScheduled()) {
+            scheduler.schedule(phaseTimer, toNanos(SessionState.time(next)));
+            armAllTicks(next);
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: sets the running state
+    // EFFECTS: sets the running state, freezing the time left when stopping
+    //          and turning it back into a deadline when running again
     public void setRunning(boolean isRunning) {
-        this.isRunning = isRunning;
+        long current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, withRunning(current, isRunning)));
     }
 
     // MODIFIES: this
-    // EFFECTS: sets the on break state
+    // EFFECTS: sets the on break state; a session put on break is taken to be on a short break
     public void setOnBreak(boolean isOnBreak) {
-        this.isOnBreak = isOnBreak;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            SessionPhase phase = SessionState.phase(current);
+            if (isOnBreak != phase.isBreak()) {
+                phase = isOnBreak ? SessionPhase.SHORT_BREAK : SessionPhase.WORK;
+            }
+            next = SessionState.pack(SessionState.time(current), phase, SessionState.isRunning(current),
+                    SessionState.cycle(current));
+        } while (!state.compareAndSet(current, next));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the phase without touching the time left or the running state
+    public void setPhase(SessionPhase phase) {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = SessionState.pack(SessionState.time(current), phase, SessionState.isRunning(current),
+                    SessionState.cycle(current));
+        } while (!state.compareAndSet(current, next));
+    }
+
+    /*
+     * EFFECTS: Returns the settings the session currently runs with.
+     */
+    public SessionConfig getConfig() {
+        return config;
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: Switches the session to the given settings without stopping it. With CURRENT_PHASE the phase in
+     *          progress takes its new length, keeping the time already spent in it (a phase that is now shorter
+     *          than that ends right away); with NEXT_PHASE it keeps its deadline and the new lengths apply
+     *          from the next phase on. The long break interval applies from the next finished work phase.
+     *          A phase that starts while the settings are being switched gets either the old or the new length:
+     *          the current phase is resized before the new settings are published, so every phase it can
+     *          resize was made under the old ones. Calls to reconfigure() take effect one at a time.
+     */
+    public void reconfigure(SessionConfig next, ReconfigureMode mode) {
+        synchronized (configLock) {
+            if (mode == ReconfigureMode.CURRENT_PHASE) {
+                resizeCurrentPhase(config, next);
+            }
+            config = next;
+        }
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: moves the deadline (or the time left) of the current phase by the difference between its length
+     *          under next and under previous, and re-arms a running countdown for it
+     */
+    private void resizeCurrentPhase(SessionConfig previous, SessionConfig next) {
+        long current;
+        long resized;
+        do {
+            current = state.get();
+            SessionPhase phase = SessionState.phase(current);
+            long delta = (next.durationOf(phase) - previous.durationOf(phase)) * 1000L;
+            resized = SessionState.pack(SessionState.time(current) + delta, phase, SessionState.isRunning(current),
+                    SessionState.cycle(current));
+        } while (!state.compareAndSet(current, resized));
+        if (SessionState.isRunning(resized) && phaseTimer.isScheduled()) {
+            scheduler.schedule(phaseTimer, toNanos(SessionState.time(resized)));
+            armAllTicks(resized);
+        }
+    }
+
+    /*
+     * REQUIRES: the session is stopped and elapsedMillis >= 0
+     * MODIFIES: this, Statistics
+     * EFFECTS: moves the session forward as if it had been running for elapsedMillis, without publishing events:
+     *          every work phase that ends is credited to the statistics and followed by the break the usual
+     *          cadence picks; whole rounds of work phases up to a long break are skipped in one step,
+     *          so the cost does not grow with elapsedMillis (those rounds count in the totals but are not
+     *          recorded one by one in the completion history)
+     */
+    public void catchUp(long elapsedMillis) {
+        SessionConfig settings = config;
+        long current = state.get();
+        SessionPhase phase = SessionState.phase(current);
+        long left = SessionState.time(current) - elapsedMillis;
+        long transitions = 0;
+        while (left <= 0) {
+            phase = phaseAfter(phase, settings, clock.currentTimeMillis() + left);
+            transitions++;
+            if (phase == SessionPhase.WORK) {
+                long rounds = -left / settings.roundMillis();
+                int interval = settings.getLongBreakInterval();
+                stat.addWork(interval * rounds, interval * rounds * settings.getWorkDuration());
+                left += rounds * settings.roundMillis();
+                transitions += 2L * interval * rounds;
+            }
+            left += settings.durationOf(phase) * 1000L;
+        }
+        state.set(SessionState.pack(left, phase, false, SessionState.cycle(current) + transitions));
+        phaseStartMillis = -1;
+    }
+
+    /*
+     * MODIFIES: Statistics
+     * EFFECTS: returns the phase that follows the given one under settings,
+     *          crediting it to the statistics as ended at endMillis if it is work
+     */
+    private SessionPhase phaseAfter(SessionPhase phase, SessionConfig settings, long endMillis) {
+        if (phase != SessionPhase.WORK) {
+            return SessionPhase.WORK;
+        }
+        stat.recordCompletion(endMillis, settings.getWorkDuration());
+        return settings.breakAfter(stat.getCompletedSessions());
     }
 
     /*
@@ -242,12 +755,16 @@ public class PomodoroSession implements Writable {
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
-        json.put("workDuration", this.workDuration / 60);
-        json.put("shortBreakDuration", this.shortBreakDuration / 60);
-        json.put("longBreakDuration", this.longBreakDuration / 60);
-        json.put("currentDuration", this.currentDuration);
-        json.put("isRunning", this.isRunning);
-        json.put("isOnBreak", this.isOnBreak);
+        SessionConfig settings = config;
+        json.put("workDuration", settings.getWorkDuration() / 60);
+        json.put("shortBreakDuration", settings.getShortBreakDuration() / 60);
+        json.put("longBreakDuration", settings.getLongBreakDuration() / 60);
+        json.put("longBreakInterval", settings.getLongBreakInterval());
+        json.put("currentDuration", getCurrentDuration());
+        json.put("isRunning", isRunning());
+        json.put("isOnBreak", isOnBreak());
+        json.put("phase", getPhase().name());
+        json.put("savedAt", clock.currentTimeMillis());
         json.put("statistics", this.stat.toJson()); // Assuming Statistics class also implements Writable
         return json;
     }
@@ -0,0 +1,7 @@
+package model;
+
+// Says when new durations given to a running PomodoroSession take effect.
+public enum ReconfigureMode {
+    CURRENT_PHASE,  // the phase in progress is stretched or shortened to the new length, keeping the time spent
+    NEXT_PHASE      // the phase in progress keeps its deadline; the new lengths apply from the next phase
+}
@@ -0,0 +1,88 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Represents a calendar rule such as "every weekday at 09:00 in Europe/Berlin".
+// A rule is immutable, so the many users who pick the same rule can share one instance. The next start
+// is found from the previous one by walking at most a week of days, and is taken in the rule's time zone,
+// so it stays at the same local time across daylight saving changes (a time skipped by a change moves
+// forward by the length of the gap).
+public class RecurrenceRule {
+    private final int dayMask;
+    private final LocalTime time;
+    private final ZoneId zone;
+
+    /*
+     * REQUIRES: days is not empty
+     * EFFECTS: creates a rule that starts at time (local to zone) on each of the given days of the week
+     */
+    public RecurrenceRule(Set<DayOfWeek> days, LocalTime time, ZoneId zone) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << day.ordinal();
+        }
+        this.dayMask = mask;
+        this.time = time;
+        this.zone = zone;
+    }
+
+    /*
+     * EFFECTS: returns a rule that starts at time (local to zone) every day
+     */
+    public static RecurrenceRule daily(LocalTime time, ZoneId zone) {
+        return new RecurrenceRule(EnumSet.allOf(DayOfWeek.class), time, zone);
+    }
+
+    /*
+     * EFFECTS: returns a rule that starts at time (local to zone) from Monday to Friday
+     */
+    public static RecurrenceRule weekdays(LocalTime time, ZoneId zone) {
+        return new RecurrenceRule(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), time, zone);
+    }
+
+    /*
+     * EFFECTS: returns the first start of this rule strictly after epochMillis, in milliseconds since the epoch
+     */
+    public long nextAfter(long epochMillis) {
+        LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+        for (int i = 0; i <= 7; i++) {
+            LocalDate day = date.plusDays(i);
+            if ((dayMask & (1 << day.getDayOfWeek().ordinal())) == 0) {
+                continue;
+            }
+            long start = ZonedDateTime.of(day, time, zone).toInstant().toEpochMilli();
+            if (start > epochMillis) {
+                return start;
+            }
+        }
+        throw new IllegalStateException("Rule has no days");
+    }
+
+    /*
+     * EFFECTS: returns true if the rule starts on the given day of the week
+     */
+    public boolean includes(DayOfWeek day) {
+        return (dayMask & (1 << day.ordinal())) != 0;
+    }
+
+    /*
+     * EFFECTS: returns the local time the rule starts at
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    /*
+     * EFFECTS: returns the time zone the rule's days and time are taken in
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+}
@@ -0,0 +1,124 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Represents recurring starts of many sessions, e.g. "start a pomodoro every weekday at 09:00".
+// The next start of every registered rule is kept in one DeadlineHeap ordered by time, and the schedule
+// owns a single PhaseTimer that wakes it at the earliest start; when it wakes, it starts every session
+// that is due, works out each rule's next start from the one just taken and puts it back in the heap.
+// So any number of rules costs one timer and O(log n) work per start, with no thread or timer per rule.
+// Starts missed while the schedule could not run (e.g. the machine was asleep) are collapsed into one.
+// Due sessions are started with startWork() on the scheduler's thread, fresh work phase included if the
+// session was already running.
+public class RecurringSchedule {
+    private final SessionScheduler scheduler;
+    private final SessionClock clock;
+    private final PhaseTimer wakeTimer;
+    private final HashMap<String, Entry> entries;
+    private final DeadlineHeap<Entry> heap;
+
+    /*
+     * EFFECTS: creates an empty schedule that wakes up on the given scheduler and reads time from its clock
+     */
+    public RecurringSchedule(SessionScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+        this.wakeTimer = new PhaseTimer(this::onWake);
+        this.entries = new HashMap<>();
+        this.heap = new DeadlineHeap<>(16);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: starts session at every start of rule from now on, under id;
+     *          throws IllegalArgumentException if id is already registered
+     */
+    public synchronized void add(String id, PomodoroSession session, RecurrenceRule rule) {
+        if (entries.containsKey(id)) {
+            throw new IllegalArgumentException("Schedule already exists: " + id);
+        }
+        Entry entry = new Entry(session, rule);
+        entries.put(id, entry);
+        heap.add(entry, rule.nextAfter(clock.currentTimeMillis()));
+        armWakeTimer();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops the recurring starts registered under id; returns false if there are none
+     */
+    public synchronized boolean remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        heap.remove(entry);
+        armWakeTimer();
+        return true;
+    }
+
+    /*
+     * EFFECTS: returns the time of the next start under id in milliseconds since the epoch,
+     *          or -1 if id is not registered
+     */
+    public synchronized long getNextStart(String id) {
+        Entry entry = entries.get(id);
+        return entry == null ? -1 : entry.deadline;
+    }
+
+    /*
+     * EFFECTS: returns the number of registered rules
+     */
+    public synchronized int size() {
+        return heap.size();
+    }
+
+    /*
+     * MODIFIES: this, every session that is due
+     * EFFECTS: called by the wake timer; starts every session whose start has come, moves its rule on to
+     *          its next start and re-arms the timer for the earliest start left
+     */
+    private void onWake() {
+        List<PomodoroSession> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.currentTimeMillis();
+            while (heap.size() > 0 && heap.peek().deadline <= now) {
+                Entry entry = heap.peek();
+                due.add(entry.session);
+                heap.update(entry, entry.rule.nextAfter(now));
+            }
+            armWakeTimer();
+        }
+        for (PomodoroSession session : due) {
+            session.startWork();
+        }
+    }
+
+    /*
+     * REQUIRES: this is locked
+     * MODIFIES: scheduler
+     * EFFECTS: schedules the wake timer for the earliest start, or cancels it if there is none
+     */
+    private void armWakeTimer() {
+        if (heap.size() == 0) {
+            scheduler.cancel(wakeTimer);
+            return;
+        }
+        long delayMillis = Math.max(heap.peek().deadline - clock.currentTimeMillis(), 0);
+        scheduler.schedule(wakeTimer, clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    }
+
+    // One registered rule: the session it starts; its deadline is its next start in milliseconds since the epoch.
+    private static final class Entry extends DeadlineHeap.Node {
+        private final PomodoroSession session;
+        private final RecurrenceRule rule;
+
+        private Entry(PomodoroSession session, RecurrenceRule rule) {
+            this.session = session;
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+// Represents the calendar units that WorkRollup totals work by; weeks are ISO weeks starting on Monday.
+// Each unit but YEAR keeps a bounded number of its most recent buckets; older work is still counted in the
+// coarser units, and years are never dropped, so work of any age can be found at some granularity.
+public enum RollupUnit {
+    HOUR(48),
+    DAY(62),
+    WEEK(53),
+    MONTH(36),
+    YEAR(0);
+
+    private final int retained;
+
+    RollupUnit(int retained) {
+        this.retained = retained;
+    }
+
+    /*
+     * EFFECTS: returns how many of the most recent buckets of this unit are kept, or 0 if all of them are
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    /*
+     * EFFECTS: returns true if no bucket of this unit ever expires
+     */
+    public boolean keepsAll() {
+        return retained == 0;
+    }
+}
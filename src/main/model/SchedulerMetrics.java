@@ -0,0 +1,78 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Represents how accurately a SessionScheduler runs its timers.
+// Every timer the scheduler runs records its lateness (actual minus scheduled time) in a histogram, so
+// p50/p99/p999 and max lateness of phase transitions and ticks can be checked against a target. Ticks
+// that fire more than a whole interval late skip the TICK events they overran; those are counted as
+// coalesced ticks. A scheduler that runs timers in batches records a batch's lateness once the batch has run.
+public class SchedulerMetrics {
+    private final LatencyHistogram lateness;
+    private final AtomicLong coalescedTicks;
+
+    /*
+     * EFFECTS: creates metrics with nothing recorded
+     */
+    public SchedulerMetrics() {
+        this.lateness = new LatencyHistogram();
+        this.coalescedTicks = new AtomicLong();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: records that a timer ran latenessNanos after its deadline
+     */
+    void recordFire(long latenessNanos) {
+        lateness.record(latenessNanos);
+    }
+
+    /*
+     * REQUIRES: 0 <= count <= latenessNanos.length
+     * MODIFIES: this
+     * EFFECTS: records that count timers ran the given numbers of nanoseconds after their deadlines, with one
+     *          update of the shared counters per run of similar lateness rather than one per timer
+     */
+    void recordFires(long[] latenessNanos, int count) {
+        lateness.recordAll(latenessNanos, count);
+    }
+
+    /*
+     * REQUIRES: count >= 0
+     * MODIFIES: this
+     * EFFECTS: records that count TICK events were skipped because their timer ran late
+     */
+    void addCoalescedTicks(long count) {
+        coalescedTicks.addAndGet(count);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds everything recorded in other to these metrics
+     */
+    public void add(SchedulerMetrics other) {
+        lateness.add(other.lateness);
+        coalescedTicks.addAndGet(other.coalescedTicks.get());
+    }
+
+    /*
+     * EFFECTS: returns the histogram of timer lateness in nanoseconds
+     */
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+
+    /*
+     * EFFECTS: returns the number of timers run
+     */
+    public long getFiredCount() {
+        return lateness.getCount();
+    }
+
+    /*
+     * EFFECTS: returns the number of TICK events skipped because their timer ran late
+     */
+    public long getCoalescedTicks() {
+        return coalescedTicks.get();
+    }
+}
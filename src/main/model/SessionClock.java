@@ -0,0 +1,30 @@
+package model;
+
+// Represents the source of time a PomodoroSession and its scheduler measure phases with.
+// nanoTime() is a monotonic reading used for deadlines, currentTimeMillis() is wall-clock time used
+// when a moment has to be recorded outside the JVM. The SYSTEM clock reads the real time; a
+// SimulationScheduler is its own clock and moves time forward only when it is told to.
+public interface SessionClock {
+    SessionClock SYSTEM = new SessionClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /*
+     * EFFECTS: returns the current monotonic time in nanoseconds, comparable only with other
+     *          readings of the same clock
+     */
+    long nanoTime();
+
+    /*
+     * EFFECTS: returns the current wall-clock time in milliseconds since the epoch
+     */
+    long currentTimeMillis();
+}
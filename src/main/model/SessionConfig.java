@@ -0,0 +1,88 @@
+package model;
+
+// Represents the settings of a PomodoroSession: the length of each phase and how many work phases are
+// completed before a long break instead of a short one.
+// A configuration never changes once built, so a session can swap it for another in one volatile write
+// while its scheduler thread keeps reading a consistent set of durations.
+public final class SessionConfig {
+    public static final int DEFAULT_LONG_BREAK_INTERVAL = 3;
+
+    private final int workDuration;        // seconds
+    private final int shortBreakDuration;  // seconds
+    private final int longBreakDuration;   // seconds
+    private final int longBreakInterval;
+
+    /*
+     * EFFECTS: creates a configuration with the given durations in minutes; a negative duration takes the
+     *          default (25 minutes of work, 5 of short break, 10 of long break), and an interval below 1 takes
+     *          DEFAULT_LONG_BREAK_INTERVAL; throws IllegalArgumentException if every duration is 0, since a
+     *          session would then cycle through its phases without time ever passing
+     */
+    public SessionConfig(int workDuration, int shortBreakDuration, int longBreakDuration, int longBreakInterval) {
+        this.workDuration = (workDuration < 0 ? 25 : workDuration) * 60; //from min to seconds
+        this.shortBreakDuration = (shortBreakDuration < 0 ? 5 : shortBreakDuration) * 60;
+        this.longBreakDuration = (longBreakDuration < 0 ? 10 : longBreakDuration) * 60;
+        this.longBreakInterval = longBreakInterval < 1 ? DEFAULT_LONG_BREAK_INTERVAL : longBreakInterval;
+        if (roundMillis() == 0) {
+            throw new IllegalArgumentException("At least one phase must last longer than 0 minutes");
+        }
+    }
+
+    /*
+     * EFFECTS: returns the length of the work phase in seconds
+     */
+    public int getWorkDuration() {
+        return workDuration;
+    }
+
+    /*
+     * EFFECTS: returns the length of the short break in seconds
+     */
+    public int getShortBreakDuration() {
+        return shortBreakDuration;
+    }
+
+    /*
+     * EFFECTS: returns the length of the long break in seconds
+     */
+    public int getLongBreakDuration() {
+        return longBreakDuration;
+    }
+
+    /*
+     * EFFECTS: returns the number of completed work phases between two long breaks
+     */
+    public int getLongBreakInterval() {
+        return longBreakInterval;
+    }
+
+    /*
+     * EFFECTS: returns the length of the given phase in seconds
+     */
+    public int durationOf(SessionPhase phase) {
+        switch (phase) {
+            case SHORT_BREAK:
+                return shortBreakDuration;
+            case LONG_BREAK:
+                return longBreakDuration;
+            default:
+                return workDuration;
+        }
+    }
+
+    /*
+     * EFFECTS: returns the break that follows the work phase which brings the completed sessions to completed
+     */
+    public SessionPhase breakAfter(long completed) {
+        return completed % longBreakInterval == 0 ? SessionPhase.LONG_BREAK : SessionPhase.SHORT_BREAK;
+    }
+
+    /*
+     * EFFECTS: returns the length in milliseconds of one round of longBreakInterval work phases
+     *          with the breaks that follow them
+     */
+    long roundMillis() {
+        return ((long) longBreakInterval * workDuration + (longBreakInterval - 1L) * shortBreakDuration
+                + longBreakDuration) * 1000L;
+    }
+}
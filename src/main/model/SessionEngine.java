@@ -0,0 +1,454 @@
+package model;
+
+import java.time.ZoneId;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Represents a service that owns many PomodoroSessions, keyed by id.
+// Sessions are kept in one ConcurrentHashMap, whose bins already let lookups and updates for different
+// users proceed without contending, and they are driven by a fixed set of scheduler shards, one
+// single-threaded ScheduledExecutorService per core. Each session is pinned to one shard, so all of
+// its transitions run in order on the same thread. A new session's shard comes from its id; rebalance()
+// later moves sessions off shards that run more timers than the rest, e.g. when many sessions were started
+// at the same second, so a synchronized burst is spread over all threads.
+public class SessionEngine {
+    private final ConcurrentHashMap<String, PomodoroSession> sessions;
+    private final ExecutorScheduler[] shards;
+    private final Map<SessionScheduler, Integer> shardIndex;
+    private ScheduledExecutorService rebalancer;
+
+    /*
+     * EFFECTS: creates an engine with one scheduler thread per available core
+     */
+    public SessionEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /*
+     * REQUIRES: threads > 0
+     * EFFECTS: creates an engine with the given number of scheduler threads
+     */
+    public SessionEngine(int threads) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.shards = new ExecutorScheduler[threads];
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new ExecutorScheduler(daemonExecutor("pomodoro-engine-" + (i + 1)));
+        }
+        this.shardIndex = new IdentityHashMap<>();
+        for (int i = 0; i < threads; i++) {
+            shardIndex.put(shards[i], i);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: creates a stopped session with the given durations (in minutes) and fresh statistics,
+     *          registers it under id and returns it;
+     *          throws IllegalArgumentException if a session with that id already exists
+     */
+    public PomodoroSession create(String id, int workDuration, int shortBreakDuration, int longBreakDuration) {
+        return create(id, workDuration, shortBreakDuration, longBreakDuration, new Statistics());
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: like create above, but the session credits the given statistics
+     */
+    public PomodoroSession create(String id, int workDuration, int shortBreakDuration, int longBreakDuration,
+                                  Statistics stat) {
+        return create(id, new SessionConfig(workDuration, shortBreakDuration, longBreakDuration,
+                SessionConfig.DEFAULT_LONG_BREAK_INTERVAL), stat);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: like create above, but the session starts with the given settings
+     */
+    public PomodoroSession create(String id, SessionConfig config, Statistics stat) {
+        PomodoroSession session = new PomodoroSession(config, stat, shardFor(id));
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Session already exists: " + id);
+        }
+        return session;
+    }
+
+    /*
+     * MODIFIES: this, session
+     * EFFECTS: registers an existing session (e.g. one restored from JSON) under id and moves its countdown
+     *          onto the shard for id; build it on schedulerFor(id) to avoid the move;
+     *          throws IllegalArgumentException if a session with that id already exists
+     */
+    public void register(String id, PomodoroSession session) {
+        ExecutorScheduler shard = shardFor(id);
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Session already exists: " + id);
+        }
+        if (session.getScheduler() != shard) {
+            session.setTimer(shard);
+        }
+    }
+
+    /*
+     * EFFECTS: returns the scheduler that drives the session registered under id, which rebalance() may have
+     *          moved off the shard its id maps to; if there is no such session, returns the shard a session
+     *          registered under id would start on
+     */
+    public SessionScheduler schedulerFor(String id) {
+        PomodoroSession session = lookup(id);
+        return session != null ? session.getScheduler() : shardFor(id);
+    }
+
+    /*
+     * EFFECTS: returns the session registered under id, or null if there is none
+     */
+    public PomodoroSession lookup(String id) {
+        return sessions.get(id);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: starts a work phase for the session under id; returns false if there is no such session
+     */
+    public boolean start(String id) {
+        PomodoroSession session = lookup(id);
+        if (session == null) {
+            return false;
+        }
+        session.startWork();
+        return true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops the session under id; returns false if there is no such session
+     */
+    public boolean stop(String id) {
+        PomodoroSession session = lookup(id);
+        if (session == null) {
+            return false;
+        }
+        session.stop();
+        return true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: resets the timer of the session under id; returns false if there is no such session
+     */
+    public boolean reset(String id) {
+        PomodoroSession session = lookup(id);
+        if (session == null) {
+            return false;
+        }
+        session.resetTimer();
+        return true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: switches every registered session to the given settings as described in
+     *          PomodoroSession.reconfigure and returns how many sessions were switched; sessions are switched
+     *          one at a time while they keep running, so nothing is paused
+     */
+    public int reconfigureAll(SessionConfig config, ReconfigureMode mode) {
+        int count = 0;
+        for (PomodoroSession session : sessions.values()) {
+            session.reconfigure(config, mode);
+            count++;
+        }
+        return count;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops and unregisters the session under id and returns it, or returns null if there is none
+     */
+    public PomodoroSession remove(String id) {
+        PomodoroSession session = sessions.remove(id);
+        if (session != null) {
+            session.stop();
+        }
+        return session;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: unregisters the session under id without stopping it, cancelling its countdown as described in
+     *          PomodoroSession.detach, and returns it, or returns null if there is none
+     */
+    public PomodoroSession detach(String id) {
+        PomodoroSession session = sessions.remove(id);
+        if (session != null) {
+            session.detach();
+        }
+        return session;
+    }
+
+    /*
+     * EFFECTS: returns the number of registered sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /*
+     * EFFECTS: returns the ids of all registered sessions at the time of the call
+     */
+    public List<String> ids() {
+        return new ArrayList<>(sessions.keySet());
+    }
+
+    /*
+     * EFFECTS: returns the statistics of all registered sessions merged in parallel, with rollups in zone;
+     *          statistics shared by several sessions are counted once
+     */
+    public Statistics aggregateStatistics(ZoneId zone) {
+        return Statistics.aggregate(distinctStatistics(), zone);
+    }
+
+    /*
+     * EFFECTS: returns the phase durations and early stops of all registered sessions added together;
+     *          statistics shared by several sessions are counted once
+     */
+    public PhaseDurations getPhaseDurations() {
+        return distinctStatistics().parallelStream()
+                .map(Statistics::getRecordedPhaseDurations)
+                .filter(Objects::nonNull)
+                .collect(PhaseDurations::new, PhaseDurations::add, PhaseDurations::add);
+    }
+
+    /*
+     * REQUIRES: n >= 0
+     * EFFECTS: returns the ids of the (at most) n registered sessions with the most total work time, most first;
+     *          each session's total is read once, in parallel, before ranking
+     */
+    public List<String> leaders(int n) {
+        return sessions.entrySet().parallelStream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(),
+                        e.getValue().getStatistics().getTotalWorkTime()))
+                .sorted(Comparator.comparing(Map.Entry<String, Long>::getValue).reversed())
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * EFFECTS: returns the number of scheduler shards (threads) driving the sessions
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /*
+     * REQUIRES: 0 <= shard < getShardCount()
+     * EFFECTS: returns the live timer lateness and coalesced tick metrics of the given shard
+     */
+    public SchedulerMetrics getShardMetrics(int shard) {
+        return shards[shard].getMetrics();
+    }
+
+    /*
+     * EFFECTS: returns a snapshot of the metrics of all shards added together
+     */
+    public SchedulerMetrics getMetrics() {
+        SchedulerMetrics total = new SchedulerMetrics();
+        for (ExecutorScheduler shard : shards) {
+            total.add(shard.getMetrics());
+        }
+        return total;
+    }
+
+    /*
+     * EFFECTS: returns the number of registered sessions driven by each shard, counted in one pass
+     */
+    public int[] getShardSizes() {
+        int[] sizes = new int[shards.length];
+        for (PomodoroSession session : sessions.values()) {
+            Integer shard = shardIndex.get(session.getScheduler());
+            if (shard != null) {
+                sizes[shard]++;
+            }
+        }
+        return sizes;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: moves sessions from the shards whose sessions ran the most timers since the last rebalance to the
+     *          shards whose sessions ran the fewest. Each session weighs as many timer runs (phase ends and ticks)
+     *          as it made since then, so only running sessions that took part in a burst are moved, heaviest
+     *          first, and only while a move narrows the gap between the two shards. Each session is moved by
+     *          its current shard's thread, so its transitions stay in order. Returns the number of sessions moved
+     */
+    public synchronized int rebalance() {
+        long[] load = new long[shards.length];
+        List<List<Weighted>> byShard = weighSessions(load);
+        int moved = 0;
+        while (true) {
+            int hot = indexOfExtreme(load, true);
+            int cold = indexOfExtreme(load, false);
+            Weighted pick = removeHeaviestUpTo(byShard.get(hot), (load[hot] - load[cold]) / 2);
+            if (pick == null) {
+                return moved;
+            }
+            migrate(pick.session, shards[hot], shards[cold]);
+            load[hot] -= pick.runs;
+            load[cold] += pick.runs;
+            moved++;
+        }
+    }
+
+    /*
+     * REQUIRES: periodMillis > 0
+     * MODIFIES: this
+     * EFFECTS: calls rebalance() every periodMillis on a background thread until the engine is shut down;
+     *          does nothing if rebalancing was already started
+     */
+    public synchronized void startRebalancing(long periodMillis) {
+        if (rebalancer == null) {
+            rebalancer = daemonExecutor("pomodoro-engine-rebalancer");
+            rebalancer.scheduleAtFixedRate(this::rebalance, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: stops every scheduler thread and the rebalancing; sessions stay registered but no longer advance
+     */
+    public synchronized void shutdown() {
+        if (rebalancer != null) {
+            rebalancer.shutdownNow();
+        }
+        for (ExecutorScheduler shard : shards) {
+            shard.getExecutor().shutdownNow();
+        }
+    }
+
+    /*
+     * EFFECTS: returns the statistics of all registered sessions, each one once however many sessions share it
+     */
+    private List<Statistics> distinctStatistics() {
+        Set<Statistics> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PomodoroSession session : sessions.values()) {
+            all.add(session.getStatistics());
+        }
+        return new ArrayList<>(all);
+    }
+
+    /*
+     * MODIFIES: this, load
+     * EFFECTS: takes the timer runs each registered session made since the last call and adds them to the load
+     *          of the shard that drives it, in one pass; returns the running sessions that made any, grouped by
+     *          shard, most runs first
+     */
+    private List<List<Weighted>> weighSessions(long[] load) {
+        List<List<Weighted>> byShard = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (PomodoroSession session : sessions.values()) {
+            long runs = session.takeTimerRuns();
+            Integer shard = shardIndex.get(session.getScheduler());
+            if (shard != null) {
+                load[shard] += runs;
+                if (runs > 0 && session.isRunning()) {
+                    byShard.get(shard).add(new Weighted(session, runs));
+                }
+            }
+        }
+        for (List<Weighted> candidates : byShard) {
+            candidates.sort(Comparator.comparingLong((Weighted weighted) -> weighted.runs).reversed());
+        }
+        return byShard;
+    }
+
+    /*
+     * REQUIRES: candidates are sorted by runs, most first
+     * MODIFIES: candidates
+     * EFFECTS: removes and returns the candidate with the most runs not above limit, or null if there is none
+     */
+    private static Weighted removeHeaviestUpTo(List<Weighted> candidates, long limit) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).runs <= limit) {
+                return candidates.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /*
+     * MODIFIES: session
+     * EFFECTS: moves session from one shard to another on the thread of the shard it leaves;
+     *          does nothing once the engine is shut down
+     */
+    private static void migrate(PomodoroSession session, ExecutorScheduler from, ExecutorScheduler to) {
+        try {
+            from.getExecutor().execute(() -> session.setTimer(to));
+        } catch (RejectedExecutionException e) {
+            // the engine was shut down
+        }
+    }
+
+    /*
+     * EFFECTS: returns the index of the largest (or, if largest is false, smallest) value; ties go to the first
+     */
+    private static int indexOfExtreme(long[] values, boolean largest) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (largest ? values[i] > values[best] : values[i] < values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * EFFECTS: returns a single-threaded scheduled executor whose daemon thread has the given name
+     */
+    private static ScheduledExecutorService daemonExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * EFFECTS: returns the scheduler shard a new session with the given id is pinned to
+     */
+    private ExecutorScheduler shardFor(String id) {
+        return shards[Math.floorMod(spread(id.hashCode()) >>> 16, shards.length)];
+    }
+
+    /*
+     * EFFECTS: mixes the bits of a hash code so that nearby ids spread over shards
+     */
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    // A running session and the number of timer runs it made since the last rebalance.
+    private static final class Weighted {
+        private final PomodoroSession session;
+        private final long runs;
+
+        private Weighted(PomodoroSession session, long runs) {
+            this.session = session;
+            this.runs = runs;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package model;
+
+// Represents the kinds of events a PomodoroSession pushes to its SessionListeners.
+public enum SessionEventType {
+    WORK_STARTED,
+    WORK_ENDED,
+    BREAK_STARTED,
+    BREAK_ENDED,
+    TICK
+}
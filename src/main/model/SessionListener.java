@@ -0,0 +1,13 @@
+package model;
+
+// Represents an observer of a PomodoroSession.
+// Listeners are called on the thread that caused the event: the scheduler thread for deadlines and ticks,
+// or the caller of startWork(), endWork() and friends. They should return quickly and hand any UI work
+// over to the thread that owns the UI.
+public interface SessionListener {
+
+    /*
+     * EFFECTS: reacts to an event of the given type that has just happened to session
+     */
+    void sessionChanged(PomodoroSession session, SessionEventType type);
+}
@@ -0,0 +1,15 @@
+package model;
+
+// Represents the phase a PomodoroSession is in.
+public enum SessionPhase {
+    WORK,
+    SHORT_BREAK,
+    LONG_BREAK;
+
+    /*
+     * EFFECTS: returns true if this phase is one of the breaks
+     */
+    public boolean isBreak() {
+        return this != WORK;
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+// Drives the phase deadlines of PomodoroSessions.
+// Sessions hand a reusable PhaseTimer and an absolute deadline, read from the scheduler's clock, to a
+// scheduler, and the scheduler decides which thread runs the timer once that deadline has passed.
+public interface SessionScheduler {
+
+    /*
+     * MODIFIES: this, timer
+     * EFFECTS: arranges for timer to run once at (or shortly after) deadlineNanos,
+     *          replacing any deadline the timer was previously scheduled for
+     */
+    void schedule(PhaseTimer timer, long deadlineNanos);
+
+    /*
+     * MODIFIES: this, timer
+     * EFFECTS: stops timer from running until it is scheduled again; does nothing if it is not scheduled
+     */
+    void cancel(PhaseTimer timer);
+
+    /*
+     * EFFECTS: returns the lateness and coalesced tick metrics of this scheduler
+     */
+    SchedulerMetrics getMetrics();
+
+    /*
+     * EFFECTS: returns the clock that deadlines given to this scheduler are measured with
+     */
+    default SessionClock getClock() {
+        return SessionClock.SYSTEM;
+    }
+}
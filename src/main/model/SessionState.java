@@ -0,0 +1,49 @@
+package model;
+
+// Packs the whole mutable state of a PomodoroSession into one long so that it can live in a single
+// AtomicLong and change with one compare-and-set:
+//   bits  0-39  time in milliseconds: the phase deadline (relative to the session's clock origin)
+//               while running, or the time left while stopped
+//   bits 40-41  phase (ordinal of SessionPhase)
+//   bit  42     running flag
+//   bits 43-62  cycle: number of phase transitions so far, wrapping at 2^20
+final class SessionState {
+    static final long MAX_TIME = (1L << 40) - 1;
+
+    private static final int PHASE_SHIFT = 40;
+    private static final int RUNNING_SHIFT = 42;
+    private static final int CYCLE_SHIFT = 43;
+    private static final long PHASE_MASK = 0x3L;
+    private static final long CYCLE_MASK = (1L << 20) - 1;
+    private static final SessionPhase[] PHASES = SessionPhase.values();
+
+    private SessionState() {
+    }
+
+    /*
+     * EFFECTS: returns the packed form of the given state; time is clamped into [0, MAX_TIME]
+     */
+    static long pack(long timeMillis, SessionPhase phase, boolean running, long cycle) {
+        long time = Math.max(0, Math.min(timeMillis, MAX_TIME));
+        return time
+                | ((long) phase.ordinal() << PHASE_SHIFT)
+                | ((running ? 1L : 0L) << RUNNING_SHIFT)
+                | ((cycle & CYCLE_MASK) << CYCLE_SHIFT);
+    }
+
+    static long time(long state) {
+        return state & MAX_TIME;
+    }
+
+    static SessionPhase phase(long state) {
+        return PHASES[(int) ((state >>> PHASE_SHIFT) & PHASE_MASK)];
+    }
+
+    static boolean isRunning(long state) {
+        return ((state >>> RUNNING_SHIFT) & 1L) != 0;
+    }
+
+    static long cycle(long state) {
+        return (state >>> CYCLE_SHIFT) & CYCLE_MASK;
+    }
+}
@@ -0,0 +1,148 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+// Represents the registration of a SessionListener with a PomodoroSession.
+// A subscription with a tick interval also receives TICK events while the session is running; the ticks are
+// aligned to the phase deadline, so they land exactly when the time left crosses a multiple of the interval.
+// Ticks are only scheduled while the subscription is active: a view that is hidden deactivates its
+// subscription, and the session then wakes up for nothing but its phase deadlines. An inactive subscription
+// still receives the phase events.
+public class SessionSubscription {
+    private final PomodoroSession session;
+    private final SessionListener listener;
+    private final PhaseTimer tickTimer;
+    private volatile long tickNanos;
+    private volatile boolean active;
+    private volatile boolean cancelled;
+
+    /*
+     * REQUIRES: tickMillis >= 0
+     * EFFECTS: creates a subscription of listener to session; tickMillis == 0 means no TICK events
+     */
+    SessionSubscription(PomodoroSession session, SessionListener listener, long tickMillis) {
+        this.session = session;
+        this.listener = listener;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.tickTimer = new PhaseTimer(this::onTick);
+        this.active = true;
+        this.cancelled = false;
+    }
+
+    /*
+     * MODIFIES: this, session
+     * EFFECTS: stops all further events to the listener
+     */
+    public void cancel() {
+        cancelled = true;
+        session.unsubscribe(this);
+        disarm(session.getScheduler());
+    }
+
+    /*
+     * EFFECTS: returns true if cancel() has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /*
+     * MODIFIES: this, session
+     * EFFECTS: starts (active) or stops (inactive) the TICK events of this subscription;
+     *          phase events are delivered either way
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+        if (active) {
+            session.armTicks(this);
+        } else {
+            disarm(session.getScheduler());
+        }
+    }
+
+    /*
+     * EFFECTS: returns true if this subscription receives TICK events while the session is running
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /*
+     * REQUIRES: tickMillis >= 0
+     * MODIFIES: this, session
+     * EFFECTS: changes the interval between TICK events; 0 means no TICK events
+     */
+    public void setTickMillis(long tickMillis) {
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        if (tickNanos == 0) {
+            disarm(session.getScheduler());
+        } else {
+            session.armTicks(this);
+        }
+    }
+
+    /*
+     * EFFECTS: returns the interval between TICK events in milliseconds, or 0 if the subscription does not tick
+     */
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /*
+     * EFFECTS: passes an event to the listener unless the subscription was cancelled
+     */
+    void deliver(SessionEventType type) {
+        if (!cancelled) {
+            listener.sessionChanged(session, type);
+        }
+    }
+
+    /*
+     * MODIFIES: this, scheduler
+     * EFFECTS: schedules the next TICK before the given phase deadline, if this subscription ticks, is active
+     *          and there is still a whole interval left before the deadline
+     */
+    void arm(SessionScheduler scheduler, long deadlineNanos, long nowNanos) {
+        long interval = tickNanos;
+        if (interval == 0 || !active || cancelled) {
+            return;
+        }
+        long next = deadlineNanos - ((deadlineNanos - nowNanos) / interval) * interval;
+        if (next - nowNanos <= 0) {
+            next += interval;
+        }
+        if (deadlineNanos - next > 0) {
+            scheduler.schedule(tickTimer, next);
+        } else {
+            scheduler.cancel(tickTimer);
+        }
+    }
+
+    /*
+     * MODIFIES: scheduler
+     * EFFECTS: cancels a pending TICK, if any
+     */
+    void disarm(SessionScheduler scheduler) {
+        scheduler.cancel(tickTimer);
+    }
+
+    /*
+     * EFFECTS: called by the scheduler; delivers a TICK and schedules the next one while the session runs;
+     *          a tick that runs a whole interval or more late is delivered once and the ticks it overran
+     *          are counted as coalesced
+     */
+    private void onTick() {
+        session.countTimerRun();
+        long interval = tickNanos;
+        if (cancelled || !active || interval == 0 || !session.isRunning()) {
+            return;
+        }
+        SessionScheduler scheduler = session.getScheduler();
+        long late = scheduler.getClock().nanoTime() - tickTimer.deadline;
+        if (late >= interval) {
+            scheduler.getMetrics().addCoalescedTicks(late / interval);
+        }
+        deliver(SessionEventType.TICK);
+        session.armTicks(this);
+    }
+}
@@ -0,0 +1,237 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents a large fleet of pomodoro sessions stored column by column in parallel primitive arrays.
+// Where a PomodoroSession is an object graph (session, Statistics, timer, listeners) per user, a row of
+// this table is a few dozen bytes spread over arrays that advance() walks sequentially, so millions of
+// sessions are moved forward by an elapsed delta in one cache-friendly loop. Phases behave like
+// PomodoroSession's: a finished work phase is credited and followed by a long break after every
+// row's long break interval of completed sessions and a short break otherwise, and a finished break is
+// followed by work. Durations and intervals are defaulted as SessionConfig defaults them.
+// A table is not thread-safe: one thread (typically one shard of a scheduler) owns it.
+public class SessionTable {
+    private static final SessionPhase[] PHASES = SessionPhase.values();
+
+    private int size;
+    private int[] workDuration;        // seconds
+    private int[] shortBreakDuration;  // seconds
+    private int[] longBreakDuration;   // seconds
+    private int[] longBreakInterval;
+    private long[] remaining;          // milliseconds left in the current phase
+    private byte[] phase;              // SessionPhase ordinal
+    private boolean[] running;
+    private int[] completedSessions;
+    private long[] totalWorkTime;      // seconds
+
+    // Receives the phase transitions made by advance() and endWork().
+    public interface TransitionListener {
+
+        /*
+         * EFFECTS: reacts to the session in the given row moving from one phase to the next
+         */
+        void transition(int row, SessionPhase from, SessionPhase to);
+    }
+
+    /*
+     * REQUIRES: initialCapacity > 0
+     * EFFECTS: creates an empty table with room for initialCapacity sessions before it has to grow
+     */
+    public SessionTable(int initialCapacity) {
+        workDuration = new int[initialCapacity];
+        shortBreakDuration = new int[initialCapacity];
+        longBreakDuration = new int[initialCapacity];
+        longBreakInterval = new int[initialCapacity];
+        remaining = new long[initialCapacity];
+        phase = new byte[initialCapacity];
+        running = new boolean[initialCapacity];
+        completedSessions = new int[initialCapacity];
+        totalWorkTime = new long[initialCapacity];
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds a stopped session with the given durations in minutes (negative values take the same
+     *          defaults as PomodoroSession) and the default long break interval, and returns its row
+     */
+    public int add(int setWorkDuration, int setShortBreakDuration, int setLongBreakDuration) {
+        return add(new SessionConfig(setWorkDuration, setShortBreakDuration, setLongBreakDuration,
+                SessionConfig.DEFAULT_LONG_BREAK_INTERVAL));
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds a stopped session with the given settings and returns its row
+     */
+    public int add(SessionConfig config) {
+        if (size == remaining.length) {
+            grow();
+        }
+        int row = size++;
+        workDuration[row] = config.getWorkDuration();
+        shortBreakDuration[row] = config.getShortBreakDuration();
+        longBreakDuration[row] = config.getLongBreakDuration();
+        longBreakInterval[row] = config.getLongBreakInterval();
+        remaining[row] = workDuration[row] * 1000L;
+        phase[row] = (byte) SessionPhase.WORK.ordinal();
+        return row;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: starts a fresh running work phase in the given row
+     */
+    public void startWork(int row) {
+        phase[row] = (byte) SessionPhase.WORK.ordinal();
+        remaining[row] = workDuration[row] * 1000L;
+        running[row] = true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: resumes the countdown of the given row from the time left
+     */
+    public void startTimer(int row) {
+        running[row] = true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: freezes the countdown of the given row
+     */
+    public void stop(int row) {
+        running[row] = false;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: ends the work phase of the given row now, credits it and starts the matching break
+     */
+    public void endWork(int row, TransitionListener listener) {
+        remaining[row] = 0;
+        running[row] = true;
+        finishPhase(row, listener);
+    }
+
+    /*
+     * REQUIRES: elapsedMillis >= 0
+     * MODIFIES: this
+     * EFFECTS: moves every running session forward by elapsedMillis; a session whose phase runs out
+     *          moves on to the next phase, carrying the overshoot into it, as many times as needed
+     */
+    public void advance(long elapsedMillis, TransitionListener listener) {
+        long[] remainingColumn = remaining;
+        boolean[] runningColumn = running;
+        for (int row = 0; row < size; row++) {
+            if (runningColumn[row]) {
+                long left = remainingColumn[row] - elapsedMillis;
+                remainingColumn[row] = left;
+                while (left <= 0) {
+                    finishPhase(row, listener);
+                    left = remainingColumn[row];
+                }
+            }
+        }
+    }
+
+    /*
+     * REQUIRES: remaining[row] <= 0
+     * MODIFIES: this
+     * EFFECTS: credits a finished work phase, picks the next phase, adds its length to the time left
+     *          and tells listener about the transition
+     */
+    private void finishPhase(int row, TransitionListener listener) {
+        SessionPhase from = PHASES[phase[row]];
+        SessionPhase to;
+        int length;
+        if (from == SessionPhase.WORK) {
+            completedSessions[row]++;
+            totalWorkTime[row] += workDuration[row];
+            boolean longBreak = completedSessions[row] % longBreakInterval[row] == 0;
+            to = longBreak ? SessionPhase.LONG_BREAK : SessionPhase.SHORT_BREAK;
+            length = longBreak ? longBreakDuration[row] : shortBreakDuration[row];
+        } else {
+            to = SessionPhase.WORK;
+            length = workDuration[row];
+        }
+        phase[row] = (byte) to.ordinal();
+        remaining[row] += length * 1000L;
+        if (listener != null) {
+            listener.transition(row, from, to);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: doubles the capacity of every column
+     */
+    private void grow() {
+        int capacity = remaining.length * 2;
+        workDuration = Arrays.copyOf(workDuration, capacity);
+        shortBreakDuration = Arrays.copyOf(shortBreakDuration, capacity);
+        longBreakDuration = Arrays.copyOf(longBreakDuration, capacity);
+        longBreakInterval = Arrays.copyOf(longBreakInterval, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        phase = Arrays.copyOf(phase, capacity);
+        running = Arrays.copyOf(running, capacity);
+        completedSessions = Arrays.copyOf(completedSessions, capacity);
+        totalWorkTime = Arrays.copyOf(totalWorkTime, capacity);
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * EFFECTS: returns the time left in the current phase of the given row in whole seconds, rounded up
+     */
+    public int getCurrentDuration(int row) {
+        long left = remaining[row];
+        return left <= 0 ? 0 : (int) ((left + 999) / 1000);
+    }
+
+    /*
+     * EFFECTS: returns the phase of the given row
+     */
+    public SessionPhase getPhase(int row) {
+        return PHASES[phase[row]];
+    }
+
+    /*
+     * EFFECTS: returns true if the countdown of the given row is running
+     */
+    public boolean isRunning(int row) {
+        return running[row];
+    }
+
+    /*
+     * EFFECTS: returns true if the given row is on a short or long break
+     */
+    public boolean isOnBreak(int row) {
+        return getPhase(row).isBreak();
+    }
+
+    /*
+     * EFFECTS: returns the work duration of the given row in seconds
+     */
+    public int getWorkDuration(int row) {
+        return workDuration[row];
+    }
+
+    /*
+     * EFFECTS: returns the number of work phases the given row has completed
+     */
+    public int getCompletedSessions(int row) {
+        return completedSessions[row];
+    }
+
+    /*
+     * EFFECTS: returns the total work time credited to the given row in seconds
+     */
+    public long getTotalWorkTime(int row) {
+        return totalWorkTime[row];
+    }
+}
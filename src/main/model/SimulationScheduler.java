@@ -0,0 +1,132 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+// Represents a scheduler that runs on virtual time and is its own SessionClock.
+// Nothing happens until the driver calls advance() or runNext(): the clock then jumps straight from one
+// deadline to the next, running every timer exactly at its deadline, so a day of sessions is replayed
+// as fast as the timers can run and always in the same order. This is what tests and capacity
+// planning use instead of waiting on the real clock.
+// Pending timers are kept in a DeadlineHeap, so re-scheduling or cancelling a timer costs O(log n)
+// and allocates nothing.
+// A simulation is not thread-safe: sessions on it must be driven from the thread that advances it,
+// and a timer must be cancelled here before it is scheduled elsewhere (as PomodoroSession.setTimer does).
+public class SimulationScheduler implements SessionScheduler, SessionClock {
+    private final long epochMillis;
+    private final SchedulerMetrics metrics;
+    private final DeadlineHeap<PhaseTimer> heap;
+    private long now;
+
+    /*
+     * EFFECTS: creates an idle simulation whose virtual clock starts at the epoch
+     */
+    public SimulationScheduler() {
+        this(0);
+    }
+
+    /*
+     * EFFECTS: creates an idle simulation whose wall clock starts at startMillis since the epoch
+     */
+    public SimulationScheduler(long startMillis) {
+        this.epochMillis = startMillis;
+        this.heap = new DeadlineHeap<>(64);
+        this.metrics = new SchedulerMetrics();
+    }
+
+    @Override
+    public SessionClock getClock() {
+        return this;
+    }
+
+    @Override
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return epochMillis + TimeUnit.NANOSECONDS.toMillis(now);
+    }
+
+    @Override
+    public void schedule(PhaseTimer timer, long deadlineNanos) {
+        if (timer.handle == this && timer.state == PhaseTimer.SCHEDULED) {
+            heap.update(timer, deadlineNanos);
+            return;
+        }
+        timer.handle = this;
+        timer.state = PhaseTimer.SCHEDULED;
+        heap.add(timer, deadlineNanos);
+    }
+
+    @Override
+    public void cancel(PhaseTimer timer) {
+        if (timer.handle != this || timer.state != PhaseTimer.SCHEDULED) {
+            return; // idle, or owned by another scheduler
+        }
+        timer.state = PhaseTimer.IDLE;
+        heap.remove(timer);
+    }
+
+    /*
+     * REQUIRES: millis >= 0
+     * MODIFIES: this, every timer that comes due
+     * EFFECTS: moves the clock forward by millis, running every timer whose deadline falls within that
+     *          time (including timers those timers schedule) at its deadline, in deadline order;
+     *          returns the number of timers run
+     */
+    public int advance(long millis) {
+        long target = now + TimeUnit.MILLISECONDS.toNanos(millis);
+        int fired = 0;
+        while (heap.size() > 0 && heap.peek().deadline - target <= 0) {
+            runNext();
+            fired++;
+        }
+        now = target;
+        return fired;
+    }
+
+    /*
+     * MODIFIES: this, the earliest timer
+     * EFFECTS: jumps the clock to the earliest deadline and runs that timer;
+     *          returns false (leaving the clock alone) if no timer is scheduled
+     */
+    public boolean runNext() {
+        PhaseTimer timer = heap.peek();
+        if (timer == null) {
+            return false;
+        }
+        heap.remove(timer);
+        timer.state = PhaseTimer.IDLE;
+        if (timer.deadline - now > 0) {
+            now = timer.deadline;
+        }
+        metrics.recordFire(now - timer.deadline);
+        try {
+            timer.fire();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+        return true;
+    }
+
+    /*
+     * EFFECTS: returns the number of timers waiting for their deadline
+     */
+    public int getPendingCount() {
+        return heap.size();
+    }
+
+    /*
+     * EFFECTS: returns the number of timers run since the simulation was created
+     */
+    public long getFiredCount() {
+        return metrics.getFiredCount();
+    }
+}
@@ -7,14 +7,55 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import persistence.Writable;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 // Represents the statistics related to work sessions.
-// Keeps track of the number of completed sessions and the total work time.
+// Keeps track of the number of completed sessions and the total work time, both as 64-bit totals.
+// The counters live in cells: a Statistics starts with one, and once two threads credit it at the same
+// moment it spreads them over more cells (up to twice the number of cores). Each thread credits the cell
+// its probe maps to, and a thread that finds its cell taken moves its probe to another cell instead of
+// waiting, as LongAdder does. So one Statistics shared by many sessions, e.g. an organisation-wide total,
+// can be credited from every scheduler thread at once without contending on one counter or a lock.
+// A cell takes a session and its work time together under a sequence number (a seqlock), so snapshot()
+// never sees a completed session without the work time credited with it.
+// Work phases credited through recordCompletion() are also kept in a CompletionLog with their end time, so
+// the work done in any time range can be queried, and added to a WorkRollup of hourly to monthly totals (in
+// the system time zone unless setRollupZone() picks another) for dashboards. They reach both in batches: a
+// completion is buffered in the writer's cell along with its counters, and a full buffer, or any reader of
+// the history, moves the buffered completions over under the log's lock. So sessions sharing one Statistics
+// take that lock once per BUFFERED completions rather than once each. Sessions also record how long their
+// phases really ran in PhaseDurations, made on first use so idle statistics stay small and saved with the
+// rest of the statistics once they exist.
+// Statistics merge: merge() adds another's totals, rollups, phase durations and completed tasks, and
+// aggregate() reduces any number of them on all cores, for organisation-wide totals. The completion history
+// is not merged, so an aggregate answers range queries through its rollups.
 public class Statistics implements Writable {
-    private int completedSessions;
-    private int totalWorkTime;
+    private static final int MAX_CELLS = Integer.highestOneBit(
+            Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)) << 1;
+    private static final int BUFFERED = 64;
+    private static final VarHandle VERSION;
+    private static final VarHandle CELLS;
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[] {initialProbe()});
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(Cell.class, "version", long.class);
+            CELLS = MethodHandles.lookup().findVarHandle(Statistics.class, "cells", Cell[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Cell[] cells;
+    private final CompletionLog completionLog;
+    private WorkRollup rollup;
+    private volatile PhaseDurations phaseDurations;
     private List<Task> completedTaskList;
 
     /*
@@ -22,17 +63,36 @@ public class Statistics implements Writable {
      * EFFECTS: Initializes a new Statistics object with zero completed sessions and total work time.
      */
     public Statistics() {
-        this.completedSessions = 0;
-        this.totalWorkTime = 0;
+        this.cells = new Cell[] {new Cell()};
+        this.completionLog = new CompletionLog();
         completedTaskList = new ArrayList<>();
     }
 
+    /*
+     * REQUIRES: completedSessions >= 0 and totalWorkTime >= 0
+     * MODIFIES: this
+     * EFFECTS: Initializes a Statistics object restored from saved counters, with no completed tasks.
+     */
+    public Statistics(long completedSessions, long totalWorkTime) {
+        this();
+        addWork(completedSessions, totalWorkTime);
+    }
+
     /*
      * MODIFIES: this
      * EFFECTS: Increments the number of completed sessions by one
      */
     public void addCompletedSession() {
-        this.completedSessions += 1;
+        addWork(1, 0);
+    }
+
+    /*
+     * REQUIRES: count >= 0
+     * MODIFIES: this
+     * EFFECTS: Increments the number of completed sessions by count
+     */
+    public void addCompletedSessions(long count) {
+        addWork(count, 0);
     }
 
     /*
@@ -40,8 +100,238 @@ public class Statistics implements Writable {
      * MODIFIES: this
      * EFFECTS:  increments the number of totalWorkTime by completed time
      */
-    public void addTotalWorkTime(int time) {
-        this.totalWorkTime += time;
+    public void addTotalWorkTime(long time) {
+        addWork(0, time);
+    }
+
+    /*
+     * REQUIRES: sessions >= 0 and time >= 0
+     * MODIFIES: this
+     * EFFECTS: credits sessions completed sessions and time seconds of work as one update, so no snapshot sees
+     *          one without the other
+     */
+    public void addWork(long sessions, long time) {
+        Cell cell = acquire();
+        cell.sessions += sessions;
+        cell.workTime += time;
+        release(cell);
+    }
+
+    /*
+     * REQUIRES: durationSeconds >= 0
+     * MODIFIES: this
+     * EFFECTS: credits one completed session of durationSeconds and records in the history that it ended at
+     *          endMillis (since the epoch); the record is buffered with the calling thread's counters and
+     *          reaches the completion log and rollups no later than the next read of either
+     */
+    public void recordCompletion(long endMillis, int durationSeconds) {
+        while (true) {
+            Cell cell = acquire();
+            if (cell.buffered == BUFFERED) {
+                release(cell);
+                drain();
+                continue;
+            }
+            cell.sessions += 1;
+            cell.workTime += durationSeconds;
+            cell.buffer(endMillis, durationSeconds);
+            boolean full = cell.buffered == BUFFERED;
+            release(cell);
+            if (full) {
+                drain();
+            }
+            return;
+        }
+    }
+
+    /*
+     * EFFECTS: returns the hourly, daily, weekly and monthly totals of the sessions credited through
+     *          recordCompletion()
+     */
+    public WorkRollup getRollup() {
+        synchronized (completionLog) {
+            drainLocked();
+            return rollupLocked();
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: moves every buffered completion into the completion log and the rollups
+     */
+    private void drain() {
+        synchronized (completionLog) {
+            drainLocked();
+        }
+    }
+
+    /*
+     * REQUIRES: completionLog is locked
+     * MODIFIES: this
+     * EFFECTS: moves every buffered completion into the completion log and the rollups, holding each cell
+     *          while it is emptied (writers that meet it move on to another cell)
+     */
+    private void drainLocked() {
+        for (Cell cell : cells) {
+            if (cell.version % 2 == 0 && cell.buffered == 0) {
+                continue; // the volatile read of version makes every finished write to the cell visible
+            }
+            lock(cell);
+            WorkRollup target = rollupLocked();
+            for (int i = 0; i < cell.buffered; i++) {
+                completionLog.record(cell.ends[i], cell.durations[i]);
+                target.record(cell.ends[i], cell.durations[i]);
+            }
+            cell.buffered = 0;
+            release(cell);
+        }
+    }
+
+    /*
+     * REQUIRES: completionLog is locked
+     * EFFECTS: returns the rollups, creating them in the system time zone if there are none yet
+     */
+    private WorkRollup rollupLocked() {
+        if (rollup == null) {
+            rollup = new WorkRollup(ZoneId.systemDefault());
+        }
+        return rollup;
+    }
+
+    /*
+     * EFFECTS: returns the histograms of how long work phases and breaks really lasted, and the early stops
+     */
+    public PhaseDurations getPhaseDurations() {
+        PhaseDurations durations = phaseDurations;
+        if (durations == null) {
+            synchronized (completionLog) {
+                durations = phaseDurations;
+                if (durations == null) {
+                    durations = new PhaseDurations();
+                    phaseDurations = durations;
+                }
+            }
+        }
+        return durations;
+    }
+
+    /*
+     * EFFECTS: returns the phase durations recorded so far, or null if none were, without creating them
+     */
+    PhaseDurations getRecordedPhaseDurations() {
+        return phaseDurations;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: rebuilds the rollups from the completion history so that their buckets follow the calendar in zone
+     */
+    public void setRollupZone(ZoneId zone) {
+        synchronized (completionLog) {
+            drainLocked();
+            WorkRollup rebuilt = new WorkRollup(zone);
+            for (int i = 0; i < completionLog.size(); i++) {
+                rebuilt.record(completionLog.getEnd(i), completionLog.getDuration(i));
+            }
+            rollup = rebuilt;
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds the totals, rollups, phase durations and completed tasks of other to this and returns
+     *          this; merging is associative and commutative except for the order of the completed tasks.
+     *          other's completion history is not copied; if its rollups are in another zone, they are rebuilt
+     *          from that history in this zone. Rollups merged in are lost if setRollupZone() is called on this
+     *          afterwards.
+     */
+    public Statistics merge(Statistics other) {
+        StatisticsSnapshot totals = other.snapshot();
+        addWork(totals.getCompletedSessions(), totals.getTotalWorkTime());
+        mergeRollup(other);
+        PhaseDurations durations = other.getRecordedPhaseDurations();
+        if (durations != null) {
+            getPhaseDurations().add(durations);
+        }
+        completedTaskList.addAll(other.completedTaskList);
+        return this;
+    }
+
+    /*
+     * EFFECTS: returns new statistics holding all the given statistics merged, with rollups in zone; the work is
+     *          split over all cores with a parallel reduction on the common fork-join pool
+     */
+    public static Statistics aggregate(Collection<Statistics> all, ZoneId zone) {
+        return all.parallelStream().collect(() -> {
+            Statistics partial = new Statistics();
+            partial.setRollupZone(zone);
+            return partial;
+        }, Statistics::merge, Statistics::merge);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: adds other's rollups to this, creating this's rollups in other's zone if there are none yet
+     */
+    private void mergeRollup(Statistics other) {
+        WorkRollup theirs;
+        synchronized (other.completionLog) {
+            other.drainLocked();
+            theirs = other.rollup;
+        }
+        if (theirs == null) {
+            return;
+        }
+        WorkRollup ours;
+        synchronized (completionLog) {
+            if (rollup == null) {
+                rollup = new WorkRollup(theirs.getZone());
+            }
+            ours = rollup;
+        }
+        if (ours.getZone().equals(theirs.getZone())) {
+            ours.merge(theirs);
+        } else {
+            replayInto(ours, other);
+        }
+    }
+
+    /*
+     * MODIFIES: ours
+     * EFFECTS: records every completion in other's log into ours, for rollups whose buckets follow another zone
+     */
+    private static void replayInto(WorkRollup ours, Statistics other) {
+        CompletionLog log = other.completionLog;
+        synchronized (log) {
+            other.drainLocked();
+            for (int i = 0; i < log.size(); i++) {
+                ours.record(log.getEnd(i), log.getDuration(i));
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: returns the number of recorded sessions that ended in [fromMillis, toMillis)
+     */
+    public int getCompletedSessionsBetween(long fromMillis, long toMillis) {
+        drain();
+        return completionLog.countBetween(fromMillis, toMillis);
+    }
+
+    /*
+     * EFFECTS: returns the work time in seconds of the recorded sessions that ended in [fromMillis, toMillis)
+     */
+    public long getWorkTimeBetween(long fromMillis, long toMillis) {
+        drain();
+        return completionLog.workTimeBetween(fromMillis, toMillis);
+    }
+
+    /*
+     * EFFECTS: returns the history of the sessions credited through recordCompletion()
+     */
+    public CompletionLog getCompletionLog() {
+        drain();
+        return completionLog;
     }
 
     /*
@@ -58,15 +348,45 @@ public class Statistics implements Writable {
     /*
      * EFFECTS: Returns the number of completed sessions.
      */
-    public int getCompletedSessions() {
-        return completedSessions;
+    public long getCompletedSessions() {
+        long sum = 0;
+        for (Cell cell : cells) {
+            sum += cell.sessions;
+        }
+        return sum;
     }
 
     /*
      * EFFECTS: Returns the total work time.
      */
-    public int getTotalWorkTime() {
-        return totalWorkTime;
+    public long getTotalWorkTime() {
+        long sum = 0;
+        for (Cell cell : cells) {
+            sum += cell.workTime;
+        }
+        return sum;
+    }
+
+    /*
+     * EFFECTS: Returns both totals read together; every addWork() is either wholly in the snapshot or not at all
+     */
+    public StatisticsSnapshot snapshot() {
+        long sessions = 0;
+        long time = 0;
+        for (Cell cell : cells) {
+            while (true) {
+                long version = cell.version;
+                long cellSessions = cell.sessions;
+                long cellTime = cell.workTime;
+                if ((version & 1) == 0 && cell.version == version) {
+                    sessions += cellSessions;
+                    time += cellTime;
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+        }
+        return new StatisticsSnapshot(sessions, time);
     }
 
     // EFFECTS: Return the size of completedTaskList
@@ -84,14 +404,145 @@ public class Statistics implements Writable {
      */
     @Override
     public JSONObject toJson() {
+        StatisticsSnapshot totals = snapshot();
         JSONObject json = new JSONObject();
-        json.put("completedSessions", completedSessions);
-        json.put("totalWorkTime", totalWorkTime);
+        json.put("completedSessions", totals.getCompletedSessions());
+        json.put("totalWorkTime", totals.getTotalWorkTime());
         JSONArray tasksArray = new JSONArray();
         for (Task task : completedTaskList) {
             tasksArray.put(task.toJson());
         }
         json.put("tasks", tasksArray);
+        json.put("completions", completionsToJson());
+        PhaseDurations durations = phaseDurations;
+        if (durations != null) {
+            json.put("phaseDurations", durations.toJson());
+        }
+        return json;
+    }
+
+    /*
+     * EFFECTS: returns the completion history as parallel arrays of end times and durations
+     */
+    private JSONObject completionsToJson() {
+        JSONArray ends = new JSONArray();
+        JSONArray durations = new JSONArray();
+        synchronized (completionLog) {
+            drainLocked();
+            for (int i = 0; i < completionLog.size(); i++) {
+                ends.put(completionLog.getEnd(i));
+                durations.put(completionLog.getDuration(i));
+            }
+        }
+        JSONObject json = new JSONObject();
+        json.put("ends", ends);
+        json.put("durations", durations);
         return json;
     }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: takes a cell for the calling thread to write and returns it: the one its probe maps to if it is
+     *          free, otherwise another one found by rehashing the probe; the second collision in a row doubles
+     *          the cells (up to MAX_CELLS), so threads that keep meeting spread out without ever blocking
+     */
+    private Cell acquire() {
+        int[] probe = PROBE.get();
+        boolean collided = false;
+        while (true) {
+            Cell[] table = cells;
+            Cell cell = table[probe[0] & (table.length - 1)];
+            long version = cell.version;
+            if ((version & 1) == 0 && VERSION.compareAndSet(cell, version, version + 1)) {
+                return cell;
+            }
+            if (collided && table.length < MAX_CELLS) {
+                CELLS.compareAndSet(this, table, grown(table));
+            }
+            collided = true;
+            probe[0] = rehash(probe[0]);
+        }
+    }
+
+    /*
+     * REQUIRES: cell was taken with acquire() by the calling thread
+     * MODIFIES: cell
+     * EFFECTS: publishes the writes made to cell and frees it
+     */
+    private static void release(Cell cell) {
+        cell.version = cell.version + 1;
+    }
+
+    /*
+     * MODIFIES: cell
+     * EFFECTS: waits until cell is free and takes it for the calling thread to write
+     */
+    private static void lock(Cell cell) {
+        while (true) {
+            long version = cell.version;
+            if ((version & 1) == 0 && VERSION.compareAndSet(cell, version, version + 1)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /*
+     * EFFECTS: returns a copy of table twice as long, its new half filled with fresh cells
+     */
+    private static Cell[] grown(Cell[] table) {
+        Cell[] grown = Arrays.copyOf(table, table.length * 2);
+        for (int i = table.length; i < grown.length; i++) {
+            grown[i] = new Cell();
+        }
+        return grown;
+    }
+
+    /*
+     * EFFECTS: returns a well-mixed, non-zero hash of the calling thread's id, its first probe
+     */
+    private static int initialProbe() {
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    /*
+     * EFFECTS: returns the next probe after probe (a xorshift step, which never yields 0 from a non-zero probe)
+     */
+    private static int rehash(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        return probe ^ (probe << 5);
+    }
+
+    // One cell of counters, with the completions credited to it that have not reached the history yet.
+    // version is odd while a thread is writing the cell; the trailing padding keeps cells allocated next to
+    // each other off one cache line.
+    private static final class Cell {
+        private volatile long version;
+        private volatile long sessions;
+        private volatile long workTime;
+        private long[] ends;
+        private int[] durations;
+        private int buffered;
+        private long p1;
+        private long p2;
+        private long p3;
+        private long p4;
+        private long p5;
+        private long p6;
+        private long p7;
+
+        // appends a completion to the buffer, creating the buffer on first use; the cell must be taken
+        private void buffer(long endMillis, int durationSeconds) {
+            if (ends == null) {
+                ends = new long[BUFFERED];
+                durations = new int[BUFFERED];
+            }
+            ends[buffered] = endMillis;
+            durations[buffered] = durationSeconds;
+            buffered++;
+        }
+    }
 }
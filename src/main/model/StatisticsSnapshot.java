@@ -0,0 +1,29 @@
+package model;
+
+// Represents the totals of a Statistics read at one time, for reporting.
+public class StatisticsSnapshot {
+    private final long completedSessions;
+    private final long totalWorkTime;
+
+    /*
+     * EFFECTS: creates a snapshot of the given totals
+     */
+    public StatisticsSnapshot(long completedSessions, long totalWorkTime) {
+        this.completedSessions = completedSessions;
+        this.totalWorkTime = totalWorkTime;
+    }
+
+    /*
+     * EFFECTS: returns the number of completed sessions
+     */
+    public long getCompletedSessions() {
+        return completedSessions;
+    }
+
+    /*
+     * EFFECTS: returns the total work time in seconds
+     */
+    public long getTotalWorkTime() {
+        return totalWorkTime;
+    }
+}
@@ -0,0 +1,347 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Represents a hierarchical timing wheel that drives any number of PhaseTimers from one thread.
+// Level 0 has one slot per tick; every higher level has slots that are 64 times wider, so a
+// timer is inserted into (and cancelled from) a doubly linked slot list in O(1) regardless of
+// how many timers are pending. Timers in a higher level are cascaded into finer levels when the
+// wheel reaches their slot. The driver thread parks until the next occupied slot instead of
+// waking on every tick, so an idle wheel costs nothing. A wheel made for one owner is stopped with
+// shutdown(); the shared wheel lives as long as the process.
+public class TimingWheel implements SessionScheduler {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 7;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final PhaseTimer[][] slots;
+    private final long[] occupied;
+    private final ReentrantLock lock;
+    private final Thread driver;
+    private final SchedulerMetrics metrics;
+
+    private long currentTick;
+    private PhaseTimer pendingHead;
+    private PhaseTimer pendingTail;
+    private volatile long nextWakeTick;
+    private volatile boolean shutdown;
+    private long polledDeadline; // deadline of the timer pollPending() returned, used by the driver only
+
+    /*
+     * REQUIRES: tickMillis > 0
+     * EFFECTS: creates a wheel with the given tick resolution and starts its daemon driver thread
+     */
+    public TimingWheel(long tickMillis, String name) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+        this.slots = new PhaseTimer[LEVELS][SLOTS];
+        this.occupied = new long[LEVELS];
+        this.lock = new ReentrantLock();
+        this.currentTick = 0;
+        this.nextWakeTick = Long.MAX_VALUE;
+        this.metrics = new SchedulerMetrics();
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /*
+     * EFFECTS: returns the wheel shared by every session that was not given its own scheduler
+     */
+    public static TimingWheel shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    @Override
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void schedule(PhaseTimer timer, long deadlineNanos) {
+        long expireTick = Math.max(ticksUntil(deadlineNanos), 0);
+        lock.lock();
+        try {
+            unlink(timer);
+            timer.deadline = deadlineNanos;
+            timer.expireTick = Math.max(expireTick, currentTick + 1);
+            insert(timer);
+        } finally {
+            lock.unlock();
+        }
+        if (timer.expireTick < nextWakeTick) {
+            LockSupport.unpark(driver);
+        }
+    }
+
+    @Override
+    public void cancel(PhaseTimer timer) {
+        lock.lock();
+        try {
+            unlink(timer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * REQUIRES: this is not the shared wheel
+     * MODIFIES: this
+     * EFFECTS: stops the driver thread; timers still pending, or scheduled from now on, never run
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(driver);
+    }
+
+    /*
+     * EFFECTS: returns the number of whole ticks between the wheel's start and the given time, rounded up
+     */
+    private long ticksUntil(long nanos) {
+        long elapsed = nanos - startNanos;
+        return (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    /*
+     * REQUIRES: lock is held and timer is idle
+     * MODIFIES: this, timer
+     * EFFECTS: puts timer into the slot of the finest level whose range covers its expiry tick
+     */
+    private void insert(PhaseTimer timer) {
+        long delta = Math.min(timer.expireTick - currentTick, MAX_DELTA);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timer.expireTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[level][slot] = timer;
+        occupied[level] |= 1L << slot;
+        timer.handle = this;
+        timer.state = PhaseTimer.SCHEDULED;
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this, timer
+     * EFFECTS: removes timer from whichever slot or pending list holds it and marks it idle
+     */
+    private void unlink(PhaseTimer timer) {
+        if (timer.handle != this) {
+            return; // idle, or owned by another scheduler
+        }
+        if (timer.state == PhaseTimer.SCHEDULED) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                slots[timer.level][timer.slot] = timer.next;
+                if (timer.next == null) {
+                    occupied[timer.level] &= ~(1L << timer.slot);
+                }
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+        } else if (timer.state == PhaseTimer.PENDING) {
+            unlinkPending(timer);
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.handle = null;
+        timer.state = PhaseTimer.IDLE;
+    }
+
+    /*
+     * REQUIRES: lock is held and timer is on the pending list
+     * MODIFIES: this, timer
+     * EFFECTS: removes timer from the list of expired timers waiting to be run
+     */
+    private void unlinkPending(PhaseTimer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            pendingHead = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        } else {
+            pendingTail = timer.prev;
+        }
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this
+     * EFFECTS: detaches every timer in the given slot and returns the head of the detached chain
+     */
+    private PhaseTimer detachSlot(int level, int slot) {
+        PhaseTimer head = slots[level][slot];
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        return head;
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this
+     * EFFECTS: returns the first tick after currentTick at which some occupied slot is reached,
+     *          or Long.MAX_VALUE if the wheel is empty
+     */
+    private long nextEventTick() {
+        long best = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            int shift = SLOT_BITS * level;
+            long base = level == 0 ? currentTick + 1 : (currentTick >>> shift) + 1;
+            long rotated = Long.rotateRight(occupied[level], (int) (base & SLOT_MASK));
+            long tick = (base + Long.numberOfTrailingZeros(rotated)) << shift;
+            best = Math.min(best, tick);
+        }
+        return best;
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this
+     * EFFECTS: moves the wheel forward to nowTick, cascading coarser slots into finer ones and moving
+     *          expired timers to the pending list
+     */
+    private void advanceTo(long nowTick) {
+        while (currentTick < nowTick) {
+            long next = nextEventTick();
+            if (next > nowTick) {
+                currentTick = nowTick;
+                return;
+            }
+            currentTick = next;
+            cascade();
+            expire(detachSlot(0, (int) (currentTick & SLOT_MASK)));
+        }
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this
+     * EFFECTS: re-inserts the timers of every higher-level slot that the current tick has just reached
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            PhaseTimer timer = detachSlot(level, (int) ((currentTick >>> shift) & SLOT_MASK));
+            while (timer != null) {
+                PhaseTimer next = timer.next;
+                timer.state = PhaseTimer.IDLE;
+                timer.next = null;
+                if (timer.expireTick <= currentTick) {
+                    expire(timer);
+                } else {
+                    insert(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    /*
+     * REQUIRES: lock is held
+     * MODIFIES: this
+     * EFFECTS: appends the given chain of timers to the pending list
+     */
+    private void expire(PhaseTimer timer) {
+        while (timer != null) {
+            PhaseTimer next = timer.next;
+            timer.state = PhaseTimer.PENDING;
+            timer.next = null;
+            timer.prev = pendingTail;
+            if (pendingTail != null) {
+                pendingTail.next = timer;
+            } else {
+                pendingHead = timer;
+            }
+            pendingTail = timer;
+            timer = next;
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: removes and returns the oldest expired timer, or null if none is waiting,
+     *          and remembers the deadline it was scheduled for
+     */
+    private PhaseTimer pollPending() {
+        lock.lock();
+        try {
+            PhaseTimer timer = pendingHead;
+            if (timer != null) {
+                unlink(timer);
+                polledDeadline = timer.deadline;
+            }
+            return timer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: advances the wheel to the current time and returns the tick the driver should wake at
+     */
+    private long advance() {
+        lock.lock();
+        try {
+            advanceTo((System.nanoTime() - startNanos) / tickNanos);
+            nextWakeTick = nextEventTick();
+            return nextWakeTick;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * EFFECTS: driver loop; runs expired timers outside the lock so that they can re-schedule themselves,
+     *          until the wheel is shut down
+     */
+    private void drive() {
+        while (!shutdown) {
+            long wakeTick = advance();
+            for (PhaseTimer timer = pollPending(); timer != null; timer = pollPending()) {
+                metrics.recordFire(System.nanoTime() - polledDeadline);
+                try {
+                    timer.fire();
+                } catch (RuntimeException e) {
+                    driver.getUncaughtExceptionHandler().uncaughtException(driver, e);
+                }
+            }
+            if (wakeTick == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long wait = startNanos + wakeTick * tickNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+        }
+    }
+
+    // Lazily creates the shared wheel the first time a session needs it.
+    private static final class SharedHolder {
+        private static final TimingWheel INSTANCE = new TimingWheel(1, "pomodoro-timing-wheel");
+    }
+}
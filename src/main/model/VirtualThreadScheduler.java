@@ -0,0 +1,202 @@
+package model;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Represents a scheduler that gives every PhaseTimer a thread of its own.
+// The thread runs the session's life as straight-line code: it parks until the current deadline,
+// runs the timer (which re-schedules it for the next phase), and parks again. With virtual threads
+// (Java 21 and later) a parked session costs a few hundred bytes of heap and no carrier thread, so
+// hundreds of thousands of sessions run on a handful of carriers. Older runtimes have no virtual
+// threads, and create() refuses to run there rather than quietly spending a platform thread per session;
+// a scheduler on platform threads has to be asked for with platformThreadFactory(). SessionEngine never
+// picks this scheduler by itself. A thread whose timer stays idle for idleMillis exits and is started
+// again on the next schedule().
+public class VirtualThreadScheduler implements SessionScheduler {
+    private static final long DEFAULT_IDLE_MILLIS = 60_000;
+
+    private final ThreadFactory threadFactory;
+    private final long idleNanos;
+    private final SchedulerMetrics metrics;
+
+    /*
+     * REQUIRES: idleMillis > 0
+     * EFFECTS: creates a scheduler that runs timers on threads made by threadFactory
+     */
+    public VirtualThreadScheduler(ThreadFactory threadFactory, long idleMillis) {
+        this.threadFactory = threadFactory;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.metrics = new SchedulerMetrics();
+    }
+
+    /*
+     * EFFECTS: returns a scheduler backed by virtual threads;
+     *          throws UnsupportedOperationException if the runtime does not offer them
+     */
+    public static VirtualThreadScheduler create() {
+        return new VirtualThreadScheduler(virtualThreadFactory(), DEFAULT_IDLE_MILLIS);
+    }
+
+    /*
+     * EFFECTS: returns true if the running JVM can create virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return lookUpVirtualThreadFactory() != null;
+    }
+
+    /*
+     * EFFECTS: returns a factory for virtual threads;
+     *          throws UnsupportedOperationException if the runtime does not offer them
+     */
+    public static ThreadFactory virtualThreadFactory() {
+        ThreadFactory factory = lookUpVirtualThreadFactory();
+        if (factory == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later, this is Java "
+                    + Runtime.version().feature());
+        }
+        return factory;
+    }
+
+    /*
+     * EFFECTS: returns a factory for platform daemon threads, one per session timer
+     */
+    public static ThreadFactory platformThreadFactory() {
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pomodoro-session-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*
+     * EFFECTS: returns Thread.ofVirtual().factory() looked up reflectively, so that this class still
+     *          compiles for Java 11, or null if the runtime does not offer virtual threads
+     */
+    private static ThreadFactory lookUpVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void schedule(PhaseTimer timer, long deadlineNanos) {
+        Thread thread;
+        boolean start = false;
+        synchronized (timer) {
+            Parker parker = timer.handle instanceof Parker ? (Parker) timer.handle : null;
+            if (parker == null || parker.owner != this) {
+                parker = new Parker(this);
+                timer.handle = parker;
+            }
+            parker.deadline = deadlineNanos;
+            timer.deadline = deadlineNanos;
+            timer.state = PhaseTimer.SCHEDULED;
+            if (parker.thread == null) {
+                Parker owner = parker;
+                parker.thread = threadFactory.newThread(() -> run(timer, owner));
+                start = true;
+            }
+            thread = parker.thread;
+        }
+        if (start) {
+            thread.start();
+        } else {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void cancel(PhaseTimer timer) {
+        synchronized (timer) {
+            if (timer.handle instanceof Parker && ((Parker) timer.handle).owner == this) {
+                timer.state = PhaseTimer.IDLE;
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: body of a timer's thread; parks until the deadline, runs the timer, and repeats until
+     *          the timer has been idle for longer than idleNanos
+     */
+    private void run(PhaseTimer timer, Parker parker) {
+        long idleSince = System.nanoTime();
+        while (true) {
+            long wait = nextWait(timer, parker, idleSince);
+            if (wait < 0) {
+                return;
+            } else if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else {
+                fire(timer);
+                idleSince = System.nanoTime();
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: timer
+     * EFFECTS: returns how long the timer's thread should park, 0 if the timer is due now (marking it idle
+     *          and recording how late it is),
+     *          or -1 if the thread has been idle too long, or the timer has moved to another scheduler,
+     *          and the thread has given the timer up
+     */
+    private long nextWait(PhaseTimer timer, Parker parker, long idleSince) {
+        synchronized (timer) {
+            if (timer.handle != parker) {
+                return -1;
+            }
+            long now = System.nanoTime();
+            if (timer.state == PhaseTimer.SCHEDULED) {
+                long wait = parker.deadline - now;
+                if (wait <= 0) {
+                    timer.state = PhaseTimer.IDLE;
+                    metrics.recordFire(-wait);
+                    return 0;
+                }
+                return wait;
+            }
+            long idleLeft = idleSince + idleNanos - now;
+            if (idleLeft <= 0) {
+                parker.thread = null;
+                return -1;
+            }
+            return idleLeft;
+        }
+    }
+
+    /*
+     * EFFECTS: runs timer, reporting anything it throws to the thread's uncaught exception handler
+     */
+    private void fire(PhaseTimer timer) {
+        try {
+            timer.fire();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    // Per-timer state of a VirtualThreadScheduler, guarded by the timer's monitor.
+    private static final class Parker {
+        private final VirtualThreadScheduler owner;
+        private long deadline;
+        private Thread thread;
+
+        private Parker(VirtualThreadScheduler owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+// Represents running totals of completed work per hour, day, ISO week, month and year in one time zone.
+// Every recorded work phase is added to the bucket of each unit that contains its end, in O(1): the zone's
+// offset is cached until its next transition, and the buckets of a unit form a ring indexed by the bucket's
+// number since the epoch, so no dates are built and nothing is allocated. Each unit keeps only its most
+// recent RollupUnit.getRetained() buckets; an expired hour is gone from the hours but still counted in its
+// day, week, month and year, so memory stays bounded while coarser units reach further back. Years never
+// expire: their ring starts with a few slots and doubles only when two kept years would share one, so a
+// range of any age can still be queried by year. Queries over a range cost at most one pass over a unit's
+// buckets.
+// Rollups in the same zone merge bucket by bucket; since a unit keeps exactly the buckets within
+// getRetained() of the newest one it has seen, merging gives the same totals in any order or grouping.
+public class WorkRollup {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final RollupUnit[] UNITS = RollupUnit.values();
+    private static final int UNBOUNDED_SLOTS = 4;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final Level[] levels;
+    private long offsetMillis;
+    private long offsetFrom;
+    private long offsetUntil;
+
+    /*
+     * EFFECTS: creates empty rollups whose buckets follow the calendar in zone
+     */
+    public WorkRollup(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.levels = new Level[UNITS.length];
+        for (RollupUnit unit : UNITS) {
+            levels[unit.ordinal()] = unit.keepsAll()
+                    ? new Level(UNBOUNDED_SLOTS, true) : new Level(unit.getRetained(), false);
+        }
+        this.offsetFrom = Long.MAX_VALUE;
+        this.offsetUntil = Long.MIN_VALUE;
+    }
+
+    /*
+     * REQUIRES: durationSeconds >= 0
+     * MODIFIES: this
+     * EFFECTS: adds one completed session of durationSeconds that ended at endMillis to the bucket of every unit
+     *          that contains endMillis; buckets older than a unit keeps are left out of that unit only
+     */
+    public synchronized void record(long endMillis, int durationSeconds) {
+        if (endMillis < offsetFrom || endMillis >= offsetUntil) {
+            cacheOffset(endMillis);
+        }
+        long local = endMillis + offsetMillis;
+        for (RollupUnit unit : UNITS) {
+            levels[unit.ordinal()].add(bucketOfLocal(unit, local), 1, durationSeconds);
+        }
+    }
+
+    /*
+     * REQUIRES: other has the same zone as this
+     * MODIFIES: this
+     * EFFECTS: adds the sessions and work time of every bucket other keeps to the same bucket here;
+     *          throws IllegalArgumentException if the zones differ
+     */
+    public void merge(WorkRollup other) {
+        if (!zone.equals(other.zone)) {
+            throw new IllegalArgumentException("Cannot merge rollups in " + other.zone + " into " + zone);
+        }
+        Level[] theirs = other.copyLevels();
+        synchronized (this) {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i].addAll(theirs[i]);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions in the unit's bucket that contains epochMillis
+     *          (0 if that bucket is no longer kept)
+     */
+    public synchronized long getSessions(RollupUnit unit, long epochMillis) {
+        return levels[unit.ordinal()].sessionsIn(bucketOf(unit, epochMillis), bucketOf(unit, epochMillis) + 1);
+    }
+
+    /*
+     * EFFECTS: returns the work time in seconds in the unit's bucket that contains epochMillis
+     *          (0 if that bucket is no longer kept)
+     */
+    public synchronized long getWorkTime(RollupUnit unit, long epochMillis) {
+        return levels[unit.ordinal()].workIn(bucketOf(unit, epochMillis), bucketOf(unit, epochMillis) + 1);
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions in the unit's buckets from the one that contains fromMillis up to,
+     *          but not including, the one that contains toMillis; buckets no longer kept count as 0
+     */
+    public synchronized long getSessionsBetween(RollupUnit unit, long fromMillis, long toMillis) {
+        return levels[unit.ordinal()].sessionsIn(bucketOf(unit, fromMillis), bucketOf(unit, toMillis));
+    }
+
+    /*
+     * EFFECTS: returns the work time in seconds in the unit's buckets from the one that contains fromMillis up
+     *          to, but not including, the one that contains toMillis; buckets no longer kept count as 0
+     */
+    public synchronized long getWorkTimeBetween(RollupUnit unit, long fromMillis, long toMillis) {
+        return levels[unit.ordinal()].workIn(bucketOf(unit, fromMillis), bucketOf(unit, toMillis));
+    }
+
+    /*
+     * EFFECTS: returns the start (ms since the epoch) of the unit's bucket that contains epochMillis
+     */
+    public long getBucketStart(RollupUnit unit, long epochMillis) {
+        LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+        switch (unit) {
+            case HOUR:
+                return Instant.ofEpochMilli(epochMillis).atZone(zone).withMinute(0).withSecond(0).withNano(0)
+                        .toInstant().toEpochMilli();
+            case WEEK:
+                date = date.minusDays(date.getDayOfWeek().getValue() - 1);
+                break;
+            case MONTH:
+                date = date.withDayOfMonth(1);
+                break;
+            case YEAR:
+                date = date.withDayOfYear(1);
+                break;
+            default:
+                break;
+        }
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /*
+     * EFFECTS: returns the time zone the buckets follow
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /*
+     * EFFECTS: returns a copy of the buckets of every unit, so they can be read without holding this
+     */
+    private synchronized Level[] copyLevels() {
+        Level[] copy = new Level[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            copy[i] = levels[i].copy();
+        }
+        return copy;
+    }
+
+    /*
+     * EFFECTS: returns the number of the unit's bucket that contains epochMillis
+     */
+    private long bucketOf(RollupUnit unit, long epochMillis) {
+        long offset = rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return bucketOfLocal(unit, epochMillis + offset);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: caches the zone's offset at epochMillis, valid from there until the zone's next transition
+     */
+    private void cacheOffset(long epochMillis) {
+        Instant instant = Instant.ofEpochMilli(epochMillis);
+        offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        offsetFrom = epochMillis;
+        offsetUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+    }
+
+    /*
+     * EFFECTS: returns the number of the unit's bucket that contains localMillis (local time as milliseconds
+     *          since the epoch): hours and days since the epoch, ISO weeks since the one that contains the
+     *          epoch, and months and years since year 0
+     */
+    private static long bucketOfLocal(RollupUnit unit, long localMillis) {
+        long day = Math.floorDiv(localMillis, DAY_MILLIS);
+        switch (unit) {
+            case HOUR:
+                return Math.floorDiv(localMillis, HOUR_MILLIS);
+            case DAY:
+                return day;
+            case WEEK:
+                return Math.floorDiv(day + 3, 7); // 1 January 1970 was a Thursday
+            case MONTH:
+                return monthOfEpochDay(day);
+            default:
+                return Math.floorDiv(monthOfEpochDay(day), 12);
+        }
+    }
+
+    /*
+     * EFFECTS: returns year * 12 + month - 1 of the date epochDay days after 1 January 1970, computed without
+     *          building a date (the days-to-civil algorithm on 400-year eras of the Gregorian calendar)
+     */
+    private static long monthOfEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shifted = (5 * dayOfYear + 2) / 153; // months counted from March
+        long month = shifted < 10 ? shifted + 3 : shifted - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    // The most recent buckets of one unit, in a ring indexed by bucket number: those within the ring's
+    // length of the newest bucket added so far, or every bucket if the level keeps all (it then grows
+    // instead of letting a bucket go).
+    private static final class Level {
+        private final boolean keepsAll;
+        private long[] buckets;
+        private long[] sessions;
+        private long[] work;
+        private long newest;
+
+        private Level(int slots, boolean keepsAll) {
+            this.keepsAll = keepsAll;
+            this.buckets = new long[slots];
+            this.sessions = new long[slots];
+            this.work = new long[slots];
+            this.newest = Long.MIN_VALUE;
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        private Level copy() {
+            Level copy = new Level(buckets.length, keepsAll);
+            System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+            System.arraycopy(sessions, 0, copy.sessions, 0, buckets.length);
+            System.arraycopy(work, 0, copy.work, 0, buckets.length);
+            copy.newest = newest;
+            return copy;
+        }
+
+        // adds count sessions of seconds to bucket, unless it is too old to keep; a slot still holding
+        // another bucket holds one that has just expired, so it is cleared, unless the level keeps all
+        // buckets, in which case the ring grows first
+        private void add(long bucket, long count, long seconds) {
+            if (!kept(bucket)) {
+                return;
+            }
+            newest = Math.max(newest, bucket);
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (buckets[slot] != bucket) {
+                if (keepsAll && buckets[slot] != Long.MIN_VALUE) {
+                    grow();
+                    add(bucket, count, seconds);
+                    return;
+                }
+                buckets[slot] = bucket;
+                sessions[slot] = 0;
+                work[slot] = 0;
+            }
+            sessions[slot] += count;
+            work[slot] += seconds;
+        }
+
+        // doubles the ring, moving every bucket to its slot in the larger one
+        private void grow() {
+            long[] oldBuckets = buckets;
+            long[] oldSessions = sessions;
+            long[] oldWork = work;
+            buckets = new long[oldBuckets.length * 2];
+            sessions = new long[buckets.length];
+            work = new long[buckets.length];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+            for (int slot = 0; slot < oldBuckets.length; slot++) {
+                if (oldBuckets[slot] != Long.MIN_VALUE) {
+                    add(oldBuckets[slot], oldSessions[slot], oldWork[slot]);
+                }
+            }
+        }
+
+        // adds every bucket other keeps
+        private void addAll(Level other) {
+            for (int slot = 0; slot < other.buckets.length; slot++) {
+                if (other.buckets[slot] != Long.MIN_VALUE && other.kept(other.buckets[slot])) {
+                    add(other.buckets[slot], other.sessions[slot], other.work[slot]);
+                }
+            }
+        }
+
+        // returns true if the level keeps all buckets or bucket is within the ring's length of the newest one
+        private boolean kept(long bucket) {
+            return keepsAll || newest == Long.MIN_VALUE || bucket > newest - buckets.length;
+        }
+
+        private long sessionsIn(long from, long until) {
+            return sum(sessions, from, until);
+        }
+
+        private long workIn(long from, long until) {
+            return sum(work, from, until);
+        }
+
+        // sums values over the kept buckets numbered in [from, until)
+        private long sum(long[] values, long from, long until) {
+            long total = 0;
+            for (int slot = 0; slot < buckets.length; slot++) {
+                long bucket = buckets[slot];
+                if (bucket >= from && bucket < until && bucket != Long.MIN_VALUE && kept(bucket)) {
+                    total += values[slot];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -9,9 +9,18 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
+import model.CompletionLog;
+import model.LatencyHistogram;
+import model.PhaseDurations;
 import model.PomodoroSession;
+import model.SessionClock;
+import model.SessionConfig;
+import model.SessionPhase;
+import model.SessionScheduler;
 import model.Statistics;
 import model.Task;
+import model.TimingWheel;
+import model.WorkRollup;
 import org.json.*;
 
 // Represents a reader that reads workroom from JSON data stored in file
@@ -23,12 +32,23 @@ public class JsonReader {
         this.source = source;
     }
 
+    // EFFECTS: constructs reader that only parses the JSON objects it is given, e.g. sessions sent over a socket
+    public JsonReader() {
+        this(null);
+    }
+
     // EFFECTS: reads data from file and returns a PomodoroSession object;
     // throws IOException if an error occurs reading data from file
     public PomodoroSession readPomodoroSession() throws IOException {
+        return readPomodoroSession(TimingWheel.shared());
+    }
+
+    // EFFECTS: reads data from file and returns a PomodoroSession object driven by scheduler;
+    // throws IOException if an error occurs reading data from file
+    public PomodoroSession readPomodoroSession(SessionScheduler scheduler) throws IOException {
         String jsonData = readFile(source);
         JSONObject jsonObject = new JSONObject(jsonData);
-        return parsePomodoroSession(jsonObject);
+        return parsePomodoroSession(jsonObject, scheduler);
     }
 
 //    // EFFECTS: reads data from file and returns a Statistics object;
@@ -76,27 +96,21 @@ public class JsonReader {
         return contentBuilder.toString();
     }
 
-    // EFFECTS: parses workroom from JSON object and returns it
-    private PomodoroSession parsePomodoroSession(JSONObject jsonObject) {
+    // EFFECTS: parses the session stored under "pomodoroSession" in jsonObject and returns it driven by scheduler
+    public PomodoroSession parsePomodoroSession(JSONObject jsonObject, SessionScheduler scheduler) {
         JSONObject sessionData = jsonObject.getJSONObject("pomodoroSession");
 
         int setWorkDuration = sessionData.getInt("workDuration");
         int setShortBreakDuration = sessionData.getInt("shortBreakDuration");
         int setLongBreakDuration = sessionData.getInt("longBreakDuration");
 
-        boolean isRunning = sessionData.optBoolean("isRunning", false);
-        boolean isOnBreak = sessionData.optBoolean("isOnBreak", false);
-        int currentDuration = sessionData.optInt("currentDuration", setWorkDuration * 60);
-
         JSONObject statisticsData = sessionData.getJSONObject("statistics");
         Statistics stat = parseStatistics(statisticsData);
 
-        PomodoroSession pomodoroSession
-                = new PomodoroSession(setWorkDuration, setShortBreakDuration, setLongBreakDuration, stat);
-
-        pomodoroSession.setRunning(isRunning);
-        pomodoroSession.setOnBreak(isOnBreak);
-        pomodoroSession.setCurrentDuration(currentDuration);
+        int longBreakInterval = sessionData.optInt("longBreakInterval", SessionConfig.DEFAULT_LONG_BREAK_INTERVAL);
+        PomodoroSession pomodoroSession = new PomodoroSession(new SessionConfig(setWorkDuration,
+                setShortBreakDuration, setLongBreakDuration, longBreakInterval), stat, scheduler);
+        restoreState(pomodoroSession, sessionData, scheduler.getClock());
 
         if (pomodoroSession.isRunning()) {
             pomodoroSession.startTimer();
@@ -105,6 +119,27 @@ public class JsonReader {
         return pomodoroSession;
     }
 
+    // MODIFIES: pomodoroSession
+    // EFFECTS: restores the phase, time left and running state saved in sessionData;
+    //          files written before the phase was saved fall back to the on break flag.
+    //          A session that was running when it was saved catches up on the time that has passed on clock
+    //          since then, so it resumes where it would be had it never stopped
+    private void restoreState(PomodoroSession pomodoroSession, JSONObject sessionData, SessionClock clock) {
+        boolean isRunning = sessionData.optBoolean("isRunning", false);
+        boolean isOnBreak = sessionData.optBoolean("isOnBreak", false);
+        int currentDuration = sessionData.optInt("currentDuration", pomodoroSession.getWorkDuration());
+
+        pomodoroSession.setOnBreak(isOnBreak);
+        if (sessionData.has("phase")) {
+            pomodoroSession.setPhase(SessionPhase.valueOf(sessionData.getString("phase")));
+        }
+        pomodoroSession.setCurrentDuration(currentDuration);
+        if (isRunning && sessionData.has("savedAt")) {
+            pomodoroSession.catchUp(Math.max(clock.currentTimeMillis() - sessionData.getLong("savedAt"), 0));
+        }
+        pomodoroSession.setRunning(isRunning);
+    }
+
 //    private void addStatistics(PomodoroSession ps, JSONObject jsonObject) {
 //        JSONArray jsonArray = jsonObject.getJSONArray("statistics");
 //        for (Object json : jsonArray) {
@@ -121,28 +156,66 @@ public class JsonReader {
 
     // EFFECTS: parses Statistics from JSON object and returns it
     public Statistics parseStatistics(JSONObject jsonObject) {
-        int totalWorkTime = jsonObject.optInt("totalWorkTime", 0); // default
-        int completedSessions = jsonObject.optInt("completedSessions", 0); // default
+        long totalWorkTime = jsonObject.optLong("totalWorkTime", 0); // default
+        long completedSessions = jsonObject.optLong("completedSessions", 0); // default
 
-        Statistics statistics = new Statistics();
-        for (int i = 0; i < completedSessions; i++) {
-            statistics.addCompletedSession();
+        Statistics statistics = new Statistics(completedSessions, totalWorkTime);
+        JSONObject completions = jsonObject.optJSONObject("completions");
+        if (completions != null) {
+            parseCompletions(statistics.getCompletionLog(), statistics.getRollup(), completions);
+        }
+        JSONObject durations = jsonObject.optJSONObject("phaseDurations");
+        if (durations != null) {
+            parsePhaseDurations(statistics.getPhaseDurations(), durations);
         }
-        statistics.addTotalWorkTime(totalWorkTime);
 
         // Parse completed tasks if they exist
         if (jsonObject.has("tasks")) {
-            JSONArray tasksArray = jsonObject.getJSONArray("tasks");
-            for (int i = 0; i < tasksArray.length(); i++) {
-                JSONObject taskJson = tasksArray.getJSONObject(i);
-                Task task = parseTask(taskJson); // when isCompleted is true
-                statistics.addCompletedTaskList(task);
-            }
+            parseCompletedTasks(statistics, jsonObject.getJSONArray("tasks"));
         }
 
         return statistics;
     }
 
+    // MODIFIES: statistics
+    // EFFECTS: parses the completed tasks in tasksArray and adds them to statistics
+    private void parseCompletedTasks(Statistics statistics, JSONArray tasksArray) {
+        for (int i = 0; i < tasksArray.length(); i++) {
+            JSONObject taskJson = tasksArray.getJSONObject(i);
+            Task task = parseTask(taskJson); // when isCompleted is true
+            statistics.addCompletedTaskList(task);
+        }
+    }
+
+    // MODIFIES: log, rollup
+    // EFFECTS: records the end times and durations saved in completions into log and rollup
+    private void parseCompletions(CompletionLog log, WorkRollup rollup, JSONObject completions) {
+        JSONArray ends = completions.getJSONArray("ends");
+        JSONArray durations = completions.getJSONArray("durations");
+        for (int i = 0; i < ends.length(); i++) {
+            log.record(ends.getLong(i), durations.getInt(i));
+            rollup.record(ends.getLong(i), durations.getInt(i));
+        }
+    }
+
+    // MODIFIES: durations
+    // EFFECTS: adds the work and break histograms and the early stops saved in json to durations
+    private void parsePhaseDurations(PhaseDurations durations, JSONObject json) {
+        parseHistogram(durations.getWork(), json.getJSONObject("work"));
+        parseHistogram(durations.getBreaks(), json.getJSONObject("breaks"));
+        durations.addEarlyStops(json.optLong("earlyStops", 0));
+    }
+
+    // MODIFIES: histogram
+    // EFFECTS: records each value saved in json as many times as its count
+    private void parseHistogram(LatencyHistogram histogram, JSONObject json) {
+        JSONArray values = json.getJSONArray("values");
+        JSONArray counts = json.getJSONArray("counts");
+        for (int i = 0; i < values.length(); i++) {
+            histogram.record(values.getLong(i), counts.getLong(i));
+        }
+    }
+
 //    // MODIFIES: stat
 //    // EFFECTS: parses CompletedTasks from JSON object and adds them to Statistics
 //    public void addCompletedTasks(Statistics stat, JSONObject jsonObject) {
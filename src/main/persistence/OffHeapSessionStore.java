@@ -0,0 +1,220 @@
+package persistence;
+
+import model.PomodoroSession;
+import model.SessionConfig;
+import model.SessionPhase;
+import model.SessionScheduler;
+import model.Statistics;
+import model.TimingWheel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Represents a store that keeps pomodoro sessions outside the Java heap.
+// Every session is a fixed-width record in direct ByteBuffer segments, so ten million idle sessions
+// are a few hundred megabytes of native memory and a handful of heap objects, and the garbage
+// collector never has to trace them. A PomodoroSession is only materialized when a session is
+// needed again. Only the session configuration, its phase state and the statistics counters are
+// stored; completed task lists stay with the caller, and the completion history and PhaseDurations are
+// not kept, so a materialized session starts them afresh (save its JSON to keep them).
+// A record also keeps the wall-clock time it was written, so a session that was running when it was stored
+// catches up on the time that has passed since, as one restored from JSON does.
+// Every public method takes the store's lock, so records can be written and read from any thread and a
+// reader never sees a record half written.
+// Record layout (RECORD_SIZE bytes, little-endian):
+//   0  int   work duration (seconds)       4  int  short break duration (seconds)
+//   8  int   long break duration (seconds) 12 int  time left in the phase (seconds)
+//   16 byte  phase (SessionPhase ordinal)  17 byte flags (IN_USE, RUNNING)
+//   18 short long break interval           20 int  unused (keeps the longs aligned)
+//   24 long  completed sessions            32 long total work time (seconds)
+//   40 long  saved at (ms since the epoch, on the session's clock)
+public class OffHeapSessionStore {
+    public static final int RECORD_SIZE = 48;
+
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final int WORK = 0;
+    private static final int SHORT_BREAK = 4;
+    private static final int LONG_BREAK = 8;
+    private static final int REMAINING = 12;
+    private static final int PHASE = 16;
+    private static final int FLAGS = 17;
+    private static final int INTERVAL = 18;
+    private static final int COMPLETED = 24;
+    private static final int TOTAL_WORK = 32;
+    private static final int SAVED_AT = 40;
+    private static final byte IN_USE = 1;
+    private static final byte RUNNING = 2;
+    private static final SessionPhase[] PHASES = SessionPhase.values();
+
+    private ByteBuffer[] segments;
+    private int[] freeSlots;
+    private int freeCount;
+    private int nextSlot;
+    private int size;
+
+    /*
+     * EFFECTS: creates an empty store; native memory is allocated in segments as sessions are added
+     */
+    public OffHeapSessionStore() {
+        segments = new ByteBuffer[0];
+        freeSlots = new int[16];
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: writes session into a free record and returns the record's slot
+     */
+    public synchronized int store(PomodoroSession session) {
+        int slot = allocate();
+        write(slot, session);
+        return slot;
+    }
+
+    /*
+     * REQUIRES: slot is in use
+     * MODIFIES: this
+     * EFFECTS: overwrites the record in slot with the current state of session
+     */
+    public synchronized void update(int slot, PomodoroSession session) {
+        write(slot, session);
+    }
+
+    /*
+     * REQUIRES: slot is in use
+     * EFFECTS: returns a new PomodoroSession rebuilt from the record in slot, driven by the shared TimingWheel
+     */
+    public PomodoroSession materialize(int slot) {
+        return materialize(slot, TimingWheel.shared());
+    }
+
+    /*
+     * REQUIRES: slot is in use, and scheduler's clock is the one the session was stored on
+     * EFFECTS: returns a new PomodoroSession rebuilt from the record in slot, driven by scheduler;
+     *          a session that was running when it was stored catches up on the time that has passed on the
+     *          clock since then and resumes its countdown
+     */
+    public synchronized PomodoroSession materialize(int slot, SessionScheduler scheduler) {
+        ByteBuffer segment = segmentOf(slot);
+        int base = offsetOf(slot);
+        Statistics stat = new Statistics(segment.getLong(base + COMPLETED), segment.getLong(base + TOTAL_WORK));
+        SessionConfig config = new SessionConfig(segment.getInt(base + WORK) / 60,
+                segment.getInt(base + SHORT_BREAK) / 60, segment.getInt(base + LONG_BREAK) / 60,
+                segment.getShort(base + INTERVAL));
+        PomodoroSession session = new PomodoroSession(config, stat, scheduler);
+        session.setPhase(PHASES[segment.get(base + PHASE)]);
+        session.setCurrentDuration(segment.getInt(base + REMAINING));
+        if ((segment.get(base + FLAGS) & RUNNING) != 0) {
+            long idle = scheduler.getClock().currentTimeMillis() - segment.getLong(base + SAVED_AT);
+            session.catchUp(Math.max(idle, 0));
+            session.startTimer();
+        }
+        return session;
+    }
+
+    /*
+     * REQUIRES: slot is in use
+     * MODIFIES: this
+     * EFFECTS: releases the record in slot so that it can be reused
+     */
+    public synchronized void free(int slot) {
+        ByteBuffer segment = segmentOf(slot);
+        segment.put(offsetOf(slot) + FLAGS, (byte) 0);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    /*
+     * EFFECTS: returns true if slot holds a session
+     */
+    public synchronized boolean isInUse(int slot) {
+        return slot >= 0 && slot < nextSlot && (segmentOf(slot).get(offsetOf(slot) + FLAGS) & IN_USE) != 0;
+    }
+
+    /*
+     * REQUIRES: slot is in use
+     * EFFECTS: returns the phase stored in slot without materializing the session
+     */
+    public synchronized SessionPhase getPhase(int slot) {
+        return PHASES[segmentOf(slot).get(offsetOf(slot) + PHASE)];
+    }
+
+    /*
+     * REQUIRES: slot is in use
+     * EFFECTS: returns the completed sessions stored in slot without materializing the session
+     */
+    public synchronized long getCompletedSessions(int slot) {
+        return segmentOf(slot).getLong(offsetOf(slot) + COMPLETED);
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions in the store
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /*
+     * EFFECTS: returns the native memory reserved by the store in bytes
+     */
+    public synchronized long getReservedBytes() {
+        return (long) segments.length * RECORDS_PER_SEGMENT * RECORD_SIZE;
+    }
+
+    /*
+     * REQUIRES: the store's lock is held
+     * MODIFIES: this
+     * EFFECTS: returns a free slot, reusing released records before growing the store
+     */
+    private int allocate() {
+        size++;
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == segments.length * RECORDS_PER_SEGMENT) {
+            ByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = ByteBuffer.allocateDirect(RECORDS_PER_SEGMENT * RECORD_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            segments = grown;
+        }
+        return nextSlot++;
+    }
+
+    /*
+     * REQUIRES: the store's lock is held
+     * MODIFIES: this
+     * EFFECTS: writes every stored field of session into the record in slot, stamped with the time on its clock
+     */
+    private void write(int slot, PomodoroSession session) {
+        ByteBuffer segment = segmentOf(slot);
+        int base = offsetOf(slot);
+        Statistics stat = session.getStatistics();
+        segment.putInt(base + WORK, session.getWorkDuration());
+        segment.putInt(base + SHORT_BREAK, session.getShortBreakDuration());
+        segment.putInt(base + LONG_BREAK, session.getLongBreakDuration());
+        segment.putInt(base + REMAINING, session.getCurrentDuration());
+        segment.put(base + PHASE, (byte) session.getPhase().ordinal());
+        segment.put(base + FLAGS, (byte) (IN_USE | (session.isRunning() ? RUNNING : 0)));
+        segment.putShort(base + INTERVAL, (short) session.getConfig().getLongBreakInterval());
+        segment.putLong(base + COMPLETED, stat.getCompletedSessions());
+        segment.putLong(base + TOTAL_WORK, stat.getTotalWorkTime());
+        segment.putLong(base + SAVED_AT, session.getClock().currentTimeMillis());
+    }
+
+    /*
+     * EFFECTS: returns the segment that holds slot
+     */
+    private ByteBuffer segmentOf(int slot) {
+        return segments[slot / RECORDS_PER_SEGMENT];
+    }
+
+    /*
+     * EFFECTS: returns the byte offset of slot's record within its segment
+     */
+    private static int offsetOf(int slot) {
+        return (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+}
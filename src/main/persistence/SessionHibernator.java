@@ -0,0 +1,201 @@
+package persistence;
+
+import model.PomodoroSession;
+import model.SessionClock;
+import model.SessionScheduler;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Represents a registry of pomodoro sessions that keeps only recently used sessions in memory.
+// Resident sessions are kept in least-recently-used order. A stopped session is hibernated, i.e. written
+// to its own JSON file in the store directory (with its statistics and completed tasks) and dropped from
+// memory, once it has been idle for idleMillis or when the resident set grows past maxResident.
+// get() rehydrates a hibernated session transparently. Running sessions are never hibernated, so the
+// resident set can only exceed maxResident while that many sessions are running.
+// Subscriptions do not survive hibernation; a rehydrated session is a new, stopped PomodoroSession.
+public class SessionHibernator {
+    private final Path directory;
+    private final int maxResident;
+    private final long idleMillis;
+    private final SessionScheduler scheduler;
+    private final SessionClock clock;
+    private final LinkedHashMap<String, Resident> resident;
+    private final Set<String> hibernated;
+
+    /*
+     * REQUIRES: maxResident > 0 and idleMillis >= 0
+     * EFFECTS: creates an empty registry that hibernates sessions into directory (created if needed),
+     *          drives rehydrated sessions with scheduler and measures idleness with its clock;
+     *          throws IOException if the directory cannot be created
+     */
+    public SessionHibernator(Path directory, int maxResident, long idleMillis, SessionScheduler scheduler)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxResident = maxResident;
+        this.idleMillis = idleMillis;
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+        this.resident = new LinkedHashMap<>(16, 0.75f, true);
+        this.hibernated = new HashSet<>();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: registers session under id as recently used, replacing any session with that id,
+     *          then hibernates least recently used stopped sessions beyond maxResident;
+     *          throws IOException if a session cannot be written
+     */
+    public synchronized void put(String id, PomodoroSession session) throws IOException {
+        if (hibernated.remove(id)) {
+            Files.deleteIfExists(fileOf(id));
+        }
+        resident.put(id, new Resident(session, clock.currentTimeMillis()));
+        evictOverflow(id);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: returns the session under id, reading it back from disk if it was hibernated,
+     *          or null if there is none; the session becomes the most recently used;
+     *          throws IOException if a hibernated session cannot be read
+     */
+    public synchronized PomodoroSession get(String id) throws IOException {
+        Resident entry = resident.get(id);
+        if (entry != null) {
+            entry.lastAccess = clock.currentTimeMillis();
+            return entry.session;
+        }
+        if (!hibernated.contains(id)) {
+            return null;
+        }
+        Path file = fileOf(id);
+        PomodoroSession session = new JsonReader(file.toString()).readPomodoroSession(scheduler);
+        hibernated.remove(id);
+        Files.delete(file);
+        put(id, session);
+        return session;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: forgets the session under id, deleting its file if it was hibernated;
+     *          returns true if there was such a session
+     */
+    public synchronized boolean remove(String id) throws IOException {
+        if (resident.remove(id) != null) {
+            return true;
+        }
+        if (hibernated.remove(id)) {
+            Files.deleteIfExists(fileOf(id));
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: hibernates every stopped session that has not been used for idleMillis and returns how many
+     *          were hibernated; meant to be called periodically
+     */
+    public synchronized int hibernateIdle() throws IOException {
+        long cutoff = clock.currentTimeMillis() - idleMillis;
+        int count = 0;
+        Iterator<Map.Entry<String, Resident>> entries = resident.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Resident> entry = entries.next();
+            if (entry.getValue().lastAccess > cutoff) {
+                break; // entries after this one were used even more recently
+            }
+            if (!entry.getValue().session.isRunning()) {
+                hibernate(entry.getKey(), entry.getValue().session);
+                entries.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * EFFECTS: returns true if the session under id is in memory
+     */
+    public synchronized boolean isResident(String id) {
+        return resident.containsKey(id);
+    }
+
+    /*
+     * EFFECTS: returns true if the session under id is hibernated on disk
+     */
+    public synchronized boolean isHibernated(String id) {
+        return hibernated.contains(id);
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions in memory
+     */
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    /*
+     * EFFECTS: returns the number of sessions hibernated on disk
+     */
+    public synchronized int getHibernatedCount() {
+        return hibernated.size();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: hibernates least recently used stopped sessions other than the one under keep
+     *          until at most maxResident are in memory or no such session is left
+     */
+    private void evictOverflow(String keep) throws IOException {
+        Iterator<Map.Entry<String, Resident>> entries = resident.entrySet().iterator();
+        while (resident.size() > maxResident && entries.hasNext()) {
+            Map.Entry<String, Resident> entry = entries.next();
+            if (!entry.getValue().session.isRunning() && !entry.getKey().equals(keep)) {
+                hibernate(entry.getKey(), entry.getValue().session);
+                entries.remove();
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: writes session to the file of id and records it as hibernated
+     */
+    private void hibernate(String id, PomodoroSession session) throws IOException {
+        JsonWriter writer = new JsonWriter(fileOf(id).toString());
+        writer.open();
+        writer.write(session, new ArrayList<>());
+        writer.close();
+        hibernated.add(id);
+    }
+
+    /*
+     * EFFECTS: returns the file a session with the given id is hibernated to
+     */
+    private Path fileOf(String id) {
+        return directory.resolve(URLEncoder.encode(id, StandardCharsets.UTF_8) + ".json");
+    }
+
+    // A session kept in memory and the last time it was used.
+    private static final class Resident {
+        private final PomodoroSession session;
+        private long lastAccess;
+
+        private Resident(PomodoroSession session, long lastAccess) {
+            this.session = session;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.awt.*;
 import model.Event;
 import model.EventLog;
 import model.PomodoroSession;
+import model.SessionEventType;
+import model.SessionSubscription;
 import model.Statistics;
 import model.Task;
 import persistence.JsonReader;
@@ -18,8 +20,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.TimerTask;
-import java.util.Timer;
 
 // Represents the user interface for the Pomodoro application.
 // Allows users to set up work sessions, take breaks, and manage tasks.
@@ -45,8 +45,8 @@ public class PomodoroApp {
     private static final String JSON_STORE = "./data/pomodoro.json";
     private JsonWriter jsonWriter;
     private JsonReader jsonReader;
-    private Timer sessionMonitorTimer;
-    private boolean wasOnBreak;
+    private SessionSubscription timerLabelSubscription;
+    private SessionSubscription sessionMonitorSubscription;
 
     /*
      * MODIFIES: this
@@ -82,6 +82,17 @@ public class PomodoroApp {
         initializeResetTimerButton();
         initializeStopTimerButton();
 
+        initializeWindowListener();
+
+        frame.setVisible(true); // show GUI
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Prints the event log and exits when the window is closed, and stops updating the timer label
+     *          while the window is minimized.
+     */
+    private void initializeWindowListener() {
         frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         frame.addWindowListener(new WindowAdapter() {
             @Override
@@ -89,9 +100,17 @@ public class PomodoroApp {
                 onApplicationExit();
                 System.exit(0);
             }
-        });
 
-        frame.setVisible(true); // show GUI
+            @Override
+            public void windowIconified(WindowEvent e) {
+                setTimerLabelVisible(false);
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                setTimerLabelVisible(true);
+            }
+        });
     }
 
     /*
@@ -123,26 +142,35 @@ public class PomodoroApp {
 
     /*
      * MODIFIES: this
-     * EFFECTS: Starts or restarts the sessionMonitorTimer to update the timerLabel every second
-     *          with the current time from the session.
-     *          If a sessionMonitorTimer is already running, it is first cancelled.
+     * EFFECTS: Subscribes the timerLabel to the session so that it is updated every second of the countdown
+     *          (only while the window is not minimized) and on every phase change,
+     *          and shows the current time right away. An earlier subscription is cancelled first.
      */
     private void updateTimerLabel() {
-        if (sessionMonitorTimer != null) {
-            sessionMonitorTimer.cancel();
+        if (timerLabelSubscription != null) {
+            timerLabelSubscription.cancel();
+            timerLabelSubscription = null;
+        }
+        if (session != null) {
+            timerLabelSubscription = session.subscribe((s, type) ->
+                    SwingUtilities.invokeLater(this::updateTimerLabelImmediately), 1000);
+            timerLabelSubscription.setActive((frame.getExtendedState() & Frame.ICONIFIED) == 0);
+            updateTimerLabelImmediately();
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Starts the per-second updates of the timerLabel when the window is shown and stops them when it is
+     *          minimized, so a hidden window only wakes up for phase changes
+     */
+    private void setTimerLabelVisible(boolean visible) {
+        if (timerLabelSubscription != null) {
+            timerLabelSubscription.setActive(visible);
+        }
+        if (visible) {
+            updateTimerLabelImmediately();
         }
-        sessionMonitorTimer = new Timer();
-        sessionMonitorTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (session != null && timerLabel != null) {
-                    int currentTime = session.getCurrentDuration();
-                    int minutes = currentTime / 60;
-                    int seconds = currentTime % 60;
-                    SwingUtilities.invokeLater(() -> timerLabel.setText(String.format("%02d:%02d", minutes, seconds)));
-                }
-            }
-        }, 0, 1000);
     }
 
     /*
@@ -246,8 +274,9 @@ public class PomodoroApp {
             updateTaskListModel();
             if (session.isRunning()) {
                 session.startTimer();
-                updateTimerLabelImmediately(); // Added method to immediately update timer labels
             }
+            updateTimerLabel(); // follow the loaded session from now on
+            startSessionMonitor();
             JOptionPane.showMessageDialog(frame, "Session loaded successfully.",
                     "Successful", JOptionPane.INFORMATION_MESSAGE);
         } catch (IOException ex) {
@@ -324,11 +353,16 @@ public class PomodoroApp {
 
     /*
      * MODIFIES: this
-     * EFFECTS: Cancels the existing session monitor timer if it is running.
+     * EFFECTS: Cancels the existing session monitor and timer label subscriptions, if any.
      */
     private void cancelExistingTimer() {
-        if (sessionMonitorTimer != null) {
-            sessionMonitorTimer.cancel();
+        if (sessionMonitorSubscription != null) {
+            sessionMonitorSubscription.cancel();
+            sessionMonitorSubscription = null;
+        }
+        if (timerLabelSubscription != null) {
+            timerLabelSubscription.cancel();
+            timerLabelSubscription = null;
         }
     }
 
@@ -500,6 +534,7 @@ public class PomodoroApp {
      */
     private void start() {
         session.startWork();
+        updateTimerLabel();
         startSessionMonitor();
     }
 
@@ -684,7 +719,7 @@ public class PomodoroApp {
                 statistics = new Statistics();
                 session = new PomodoroSession(workDuration, shortBreak, longBreak, statistics);
                 settingsDialog.dispose();
-            } catch (NumberFormatException ex) {
+            } catch (IllegalArgumentException ex) {
                 JOptionPane.showMessageDialog(settingsDialog, "Please enter valid numbers",
                         "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -774,16 +809,14 @@ public class PomodoroApp {
     }
 
     /*
-     * MODIFIES: this.session, this.sessionMonitorTimer
-     * EFFECTS: Stops the current pomodoro session and cancels the session monitoring timer.
+     * MODIFIES: this.session, this.sessionMonitorSubscription, this.timerLabelSubscription
+     * EFFECTS: Stops the current pomodoro session and cancels the session monitoring subscriptions.
      */
     public void stop() {
         if (session != null) {
             session.stop();
         }
-        if (sessionMonitorTimer != null) {
-            sessionMonitorTimer.cancel();
-        }
+        cancelExistingTimer();
     }
 
     /*
@@ -895,29 +928,25 @@ public class PomodoroApp {
     /*
      * REQUIRES: session must be a valid PomodoroSession instance
      * MODIFIES: this
-     * EFFECTS: Starts a timer task that checks every second if a break has started or ended within the session.
-     * If a break has started, shows an information message dialog. If a break has ended, shows an information message
-     * dialog to resume work. Updates the wasOnBreak flag according to the current session state.
+     * EFFECTS: Subscribes to the session's break events. When a break starts, shows an information message
+     * dialog; when a break ends, shows an information message dialog to resume work.
+     * An earlier monitor subscription is cancelled first.
      */
     private void startSessionMonitor() {
-        sessionMonitorTimer = new Timer();
-        sessionMonitorTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (session != null) {
-                    if (session.isOnBreak() && !wasOnBreak) {
-                        // When the break began
-                        JOptionPane.showMessageDialog(frame, "A break has begun!",
-                                "Break begins", JOptionPane.INFORMATION_MESSAGE);
-                    } else if (!session.isOnBreak() && wasOnBreak) {
-                        // When the break is over
-                        JOptionPane.showMessageDialog(frame, "Break is over. Let's resume work!",
-                                "End of break", JOptionPane.INFORMATION_MESSAGE);
-                    }
-                    wasOnBreak = session.isOnBreak();
-                }
+        if (sessionMonitorSubscription != null) {
+            sessionMonitorSubscription.cancel();
+        }
+        sessionMonitorSubscription = session.subscribe((s, type) -> {
+            if (type == SessionEventType.BREAK_STARTED) {
+                // When the break began
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, "A break has begun!",
+                        "Break begins", JOptionPane.INFORMATION_MESSAGE));
+            } else if (type == SessionEventType.BREAK_ENDED) {
+                // When the break is over
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "Break is over. Let's resume work!", "End of break", JOptionPane.INFORMATION_MESSAGE));
             }
-        }, 0, 1000); //check every second
+        });
     }
 
     // EFFECTS: Add to the end processing part of the application
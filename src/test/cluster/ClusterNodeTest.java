@@ -0,0 +1,124 @@
+package cluster;
+
+import model.PomodoroSession;
+import model.SessionConfig;
+import model.SessionEngine;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterNodeTest {
+    private static final int SESSIONS = 40;
+
+    private List<ClusterNode> nodes;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        nodes = new ArrayList<>();
+        ClusterNode seed = startNode("a");
+        startNode("b").join(seed.getAddress());
+        startNode("c").join(seed.getAddress());
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        for (ClusterNode node : nodes) {
+            node.close();
+            node.getEngine().shutdown();
+        }
+    }
+
+    @Test
+    void testMembership() {
+        for (ClusterNode node : nodes) {
+            assertEquals(3, node.getMembers().size());
+            assertEquals(nodes.get(0).ownerOf("alice"), node.ownerOf("alice"));
+        }
+    }
+
+    @Test
+    void testRequestsAreRoutedToTheOwner() throws IOException {
+        ClusterNode entry = nodes.get(0);
+        for (int i = 0; i < SESSIONS; i++) {
+            assertTrue(entry.create("user-" + i, new SessionConfig(20, 4, 8, 2)));
+        }
+        assertFalse(nodes.get(1).create("user-0", new SessionConfig(20, 4, 8, 2)));
+        assertEquals(SESSIONS, totalSessions());
+        assertOwnersHoldSessions();
+
+        assertTrue(nodes.get(2).start("user-7"));
+        JSONObject state = nodes.get(1).get("user-7");
+        assertTrue(state.getBoolean("isRunning"));
+        assertEquals(2, state.getInt("longBreakInterval"));
+        assertTrue(entry.stop("user-7"));
+        assertFalse(nodes.get(1).get("user-7").getBoolean("isRunning"));
+        assertTrue(entry.reset("user-7"));
+
+        assertNull(entry.get("nobody"));
+        assertFalse(entry.start("nobody"));
+    }
+
+    @Test
+    void testJoinAndLeaveHandOffSessions() throws IOException {
+        ClusterNode entry = nodes.get(0);
+        for (int i = 0; i < SESSIONS; i++) {
+            entry.create("user-" + i, new SessionConfig(20, 4, 8, 2));
+            entry.start("user-" + i);
+        }
+
+        ClusterNode joiner = startNode("d");
+        joiner.join(entry.getAddress());
+        assertTrue(joiner.getEngine().size() > 0);
+        assertEquals(SESSIONS, totalSessions());
+        assertOwnersHoldSessions();
+
+        ClusterNode leaver = nodes.remove(1);
+        leaver.leave();
+        assertEquals(0, leaver.getEngine().size());
+        leaver.getEngine().shutdown();
+        assertEquals(SESSIONS, totalSessions());
+        assertOwnersHoldSessions();
+        assertSessionsStillWorking(joiner);
+    }
+
+    private ClusterNode startNode(String id) throws IOException {
+        ClusterNode node = new ClusterNode(id, new SessionEngine(1));
+        nodes.add(node);
+        return node;
+    }
+
+    private int totalSessions() {
+        int total = 0;
+        for (ClusterNode node : nodes) {
+            total += node.getEngine().size();
+        }
+        return total;
+    }
+
+    private void assertSessionsStillWorking(ClusterNode node) throws IOException {
+        for (int i = 0; i < SESSIONS; i++) {
+            JSONObject state = node.get("user-" + i);
+            assertTrue(state.getBoolean("isRunning"));
+            assertEquals("WORK", state.getString("phase"));
+            assertTrue(state.getInt("currentDuration") > 1100);
+            assertFalse(state.getJSONObject("statistics").has("phaseDurations")); // no early stops recorded
+        }
+    }
+
+    private void assertOwnersHoldSessions() {
+        for (ClusterNode node : nodes) {
+            for (String id : node.getEngine().ids()) {
+                assertEquals(node.getNodeId(), node.ownerOf(id));
+                PomodoroSession session = node.getEngine().lookup(id);
+                assertEquals(1200, session.getWorkDuration());
+            }
+        }
+    }
+}
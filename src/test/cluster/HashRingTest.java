@@ -0,0 +1,79 @@
+package cluster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashRingTest {
+    private static final int IDS = 10000;
+
+    private HashRing testRing;
+
+    @BeforeEach
+    void runBefore() {
+        testRing = new HashRing();
+    }
+
+    @Test
+    void testEmptyRing() {
+        assertNull(testRing.ownerOf("alice"));
+        assertTrue(testRing.getNodes().isEmpty());
+    }
+
+    @Test
+    void testAddAndRemoveNodes() {
+        testRing.addNode("a");
+        testRing.addNode("b");
+        testRing.addNode("a");
+        assertEquals(2, testRing.getNodes().size());
+        assertTrue(testRing.contains("a"));
+        testRing.removeNode("a");
+        assertFalse(testRing.contains("a"));
+        assertEquals("b", testRing.ownerOf("alice"));
+    }
+
+    @Test
+    void testOwnershipIsBalanced() {
+        testRing.addNode("a");
+        testRing.addNode("b");
+        testRing.addNode("c");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < IDS; i++) {
+            counts.merge(testRing.ownerOf("user-" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > IDS / 3 * 0.7 && count < IDS / 3 * 1.3, "share " + count);
+        }
+    }
+
+    @Test
+    void testJoinOnlyMovesIdsToTheNewNode() {
+        testRing.addNode("a");
+        testRing.addNode("b");
+        testRing.addNode("c");
+        String[] before = new String[IDS];
+        for (int i = 0; i < IDS; i++) {
+            before[i] = testRing.ownerOf("user-" + i);
+        }
+        testRing.addNode("d");
+        int moved = 0;
+        for (int i = 0; i < IDS; i++) {
+            String after = testRing.ownerOf("user-" + i);
+            if (!after.equals(before[i])) {
+                assertEquals("d", after);
+                moved++;
+            }
+        }
+        assertTrue(moved > IDS / 4 * 0.7 && moved < IDS / 4 * 1.3, "moved " + moved);
+
+        testRing.removeNode("d");
+        for (int i = 0; i < IDS; i++) {
+            assertEquals(before[i], testRing.ownerOf("user-" + i));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class CompletionLogTest {
+    private static final long MINUTE = 60 * 1000L;
+
+    private CompletionLog testLog;
+
+    @BeforeEach
+    void runBefore() {
+        testLog = new CompletionLog();
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(0, testLog.size());
+        assertEquals(0, testLog.countBetween(0, Long.MAX_VALUE));
+        assertEquals(0, testLog.firstAtOrAfter(100));
+    }
+
+    @Test
+    void testRangeQueriesAcrossChunks() {
+        for (int i = 0; i < 50_000; i++) {
+            testLog.record(i * 30 * MINUTE, 1500);
+        }
+        assertEquals(50_000, testLog.size());
+        assertEquals(2, testLog.countBetween(0, 60 * MINUTE));
+        assertEquals(2 * 1500, testLog.workTimeBetween(0, 60 * MINUTE));
+        assertEquals(48, testLog.countBetween(2000 * 30 * MINUTE, 2048 * 30 * MINUTE));
+        assertEquals(0, testLog.countBetween(60 * MINUTE, 0));
+        assertEquals(50_000, testLog.countBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(30_000, testLog.firstAtOrAfter(30_000 * 30 * MINUTE - 1));
+        assertTrue(testLog.getRetainedBytes() < 50_000 * 13);
+    }
+
+    @Test
+    void testLateEntryIsInsertedInOrder() {
+        testLog.record(10 * MINUTE, 1);
+        testLog.record(30 * MINUTE, 3);
+        testLog.record(20 * MINUTE, 2);
+        testLog.record(5 * MINUTE, 0);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, testLog.getDuration(i));
+        }
+        assertEquals(5 * MINUTE, testLog.getEnd(0));
+        assertEquals(2, testLog.countBetween(10 * MINUTE, 30 * MINUTE));
+    }
+
+    @Test
+    void testSessionRecordsCompletions() {
+        Statistics stat = new Statistics();
+        SimulationScheduler simulation = new SimulationScheduler(1_000_000);
+        PomodoroSession session = new PomodoroSession(25, 5, 10, stat, simulation);
+        session.startWork();
+        simulation.advance(25 * MINUTE);
+        simulation.advance(5 * MINUTE);
+        simulation.advance(25 * MINUTE);
+        assertEquals(2, stat.getCompletedSessions());
+        assertEquals(1_000_000 + 25 * MINUTE, stat.getCompletionLog().getEnd(0));
+        assertEquals(1, stat.getCompletedSessionsBetween(1_000_000 + 30 * MINUTE, Long.MAX_VALUE));
+        assertEquals(1500, stat.getWorkTimeBetween(1_000_000 + 30 * MINUTE, Long.MAX_VALUE));
+
+        session.stop();
+        simulation.advance(30 * MINUTE);
+        session.catchUp(30 * MINUTE);
+        assertEquals(3, stat.getCompletionLog().size());
+        assertEquals(1_000_000 + 85 * MINUTE, stat.getCompletionLog().getEnd(2));
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class DeadlineHeapTest {
+    private DeadlineHeap<Node> testHeap;
+
+    private static final class Node extends DeadlineHeap.Node {
+    }
+
+    @BeforeEach
+    void runBefore() {
+        testHeap = new DeadlineHeap<>(2);
+    }
+
+    @Test
+    void testPollsInDeadlineOrder() {
+        long[] deadlines = {50, 10, 40, 30, 20, 60};
+        for (long deadline : deadlines) {
+            testHeap.add(new Node(), deadline);
+        }
+        assertEquals(6, testHeap.size());
+        for (long expected = 10; expected <= 60; expected += 10) {
+            Node earliest = testHeap.peek();
+            assertEquals(expected, earliest.deadline);
+            testHeap.remove(earliest);
+        }
+        assertNull(testHeap.peek());
+    }
+
+    @Test
+    void testUpdateAndRemoveFromTheMiddle() {
+        Node early = new Node();
+        Node middle = new Node();
+        Node late = new Node();
+        testHeap.add(early, 10);
+        testHeap.add(middle, 20);
+        testHeap.add(late, 30);
+
+        testHeap.update(late, 5);
+        assertSame(late, testHeap.peek());
+        testHeap.update(late, 40);
+        assertSame(early, testHeap.peek());
+        testHeap.remove(middle);
+        testHeap.remove(early);
+        assertSame(late, testHeap.peek());
+        assertEquals(1, testHeap.size());
+    }
+
+    // deadlines are compared by difference, so a deadline past Long.MAX_VALUE still sorts after one before it
+    @Test
+    void testDeadlinesWrapAround() {
+        Node beforeWrap = new Node();
+        Node afterWrap = new Node();
+        testHeap.add(afterWrap, Long.MIN_VALUE + 5);
+        testHeap.add(beforeWrap, Long.MAX_VALUE - 5);
+        assertSame(beforeWrap, testHeap.peek());
+    }
+}
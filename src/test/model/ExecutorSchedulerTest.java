@@ -0,0 +1,106 @@
+package model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class ExecutorSchedulerTest {
+    private ScheduledExecutorService testExecutor;
+    private ExecutorScheduler testScheduler;
+
+    @BeforeEach
+    void runBefore() {
+        testExecutor = Executors.newSingleThreadScheduledExecutor();
+        testScheduler = new ExecutorScheduler(testExecutor, 50);
+    }
+
+    @AfterEach
+    void runAfter() {
+        testExecutor.shutdownNow();
+    }
+
+    @Test
+    void testHerdRunsAsOneBatch() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1000);
+        long bucketStart = (System.nanoTime() / TimeUnit.MILLISECONDS.toNanos(50) + 2)
+                * TimeUnit.MILLISECONDS.toNanos(50);
+        for (int i = 0; i < 1000; i++) {
+            testScheduler.schedule(new PhaseTimer(fired::countDown), bucketStart + i * 1000L);
+        }
+        assertEquals(1, testScheduler.getPendingBatchCount());
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() >= bucketStart + 1000 * 1000L);
+        testExecutor.submit(() -> { }).get(); // metrics are recorded once the batch has run
+        assertEquals(1000, testScheduler.getMetrics().getFiredCount());
+        assertEquals(0, testScheduler.getPendingBatchCount());
+    }
+
+    @Test
+    void testLatenessIsMeasuredFromEachDeadline() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long bucketEnd = (System.nanoTime() / TimeUnit.MILLISECONDS.toNanos(50) + 2)
+                * TimeUnit.MILLISECONDS.toNanos(50);
+        testScheduler.schedule(new PhaseTimer(fired::countDown), bucketEnd - TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        testExecutor.submit(() -> { }).get();
+        assertEquals(1, testScheduler.getMetrics().getFiredCount());
+        assertTrue(testScheduler.getMetrics().getLateness().getMax() < TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void testTimersInOneBucketRunAtTheirOwnDeadlines() throws Exception {
+        long bucketStart = (System.nanoTime() / TimeUnit.MILLISECONDS.toNanos(50) + 2)
+                * TimeUnit.MILLISECONDS.toNanos(50);
+        long[] deadlines = {bucketStart + TimeUnit.MILLISECONDS.toNanos(5),
+                bucketStart + TimeUnit.MILLISECONDS.toNanos(30)};
+        long[] ranAt = new long[2];
+        CountDownLatch fired = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            int timer = i;
+            testScheduler.schedule(new PhaseTimer(() -> {
+                ranAt[timer] = System.nanoTime();
+                fired.countDown();
+            }), deadlines[i]);
+        }
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(ranAt[i] >= deadlines[i]);
+            assertTrue(ranAt[i] - deadlines[i] < TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        testExecutor.submit(() -> { }).get();
+        assertEquals(2, testScheduler.getMetrics().getFiredCount());
+    }
+
+    @Test
+    void testCancelAndRescheduleSkipStaleEntries() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch fired = new CountDownLatch(1);
+        PhaseTimer cancelled = new PhaseTimer(count::incrementAndGet);
+        PhaseTimer moved = new PhaseTimer(() -> {
+            count.incrementAndGet();
+            fired.countDown();
+        });
+        long now = System.nanoTime();
+        testScheduler.schedule(cancelled, now + TimeUnit.MILLISECONDS.toNanos(20));
+        testScheduler.cancel(cancelled);
+        assertFalse(cancelled.isScheduled());
+        testScheduler.schedule(moved, now + TimeUnit.MILLISECONDS.toNanos(20));
+        testScheduler.schedule(moved, now + TimeUnit.MILLISECONDS.toNanos(150));
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() >= now + TimeUnit.MILLISECONDS.toNanos(150));
+        Thread.sleep(100);
+        testExecutor.submit(() -> { }).get();
+        assertEquals(1, count.get());
+        assertEquals(1, testScheduler.getMetrics().getFiredCount());
+    }
+}
@@ -0,0 +1,90 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class GroupSessionTest {
+    private SimulationScheduler testSimulation;
+    private GroupSession testGroup;
+
+    @BeforeEach
+    void runBefore() {
+        testSimulation = new SimulationScheduler();
+        testGroup = new GroupSession(25, 5, 10, 4, testSimulation);
+    }
+
+    @Test
+    void testJoinAndLeave() {
+        Statistics alice = testGroup.join("alice");
+        Statistics bob = new Statistics();
+        testGroup.join("bob", bob);
+        assertEquals(2, testGroup.getParticipantCount());
+        assertSame(alice, testGroup.getParticipantStatistics("alice"));
+        assertThrows(IllegalArgumentException.class, () -> testGroup.join("bob"));
+
+        assertSame(bob, testGroup.leave("bob"));
+        assertNull(testGroup.leave("bob"));
+        assertNull(testGroup.getParticipantStatistics("bob"));
+        assertEquals(1, testGroup.getParticipantCount());
+    }
+
+    @Test
+    void testEveryParticipantIsCredited() {
+        List<Statistics> room = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            room.add(testGroup.join("participant-" + i));
+        }
+        testGroup.start();
+        testSimulation.advance(25 * 60 * 1000);
+
+        assertEquals(SessionPhase.SHORT_BREAK, testGroup.getSchedule().getPhase());
+        for (Statistics stat : room) {
+            assertEquals(1, stat.getCompletedSessions());
+            assertEquals(1500, stat.getTotalWorkTime());
+        }
+        assertEquals(1, testSimulation.getPendingCount());
+    }
+
+    @Test
+    void testLateJoinerOnlyGetsLaterWork() {
+        Statistics early = testGroup.join("early");
+        testGroup.start();
+        testGroup.endWork();
+        Statistics late = testGroup.join("late");
+        testSimulation.advance(5 * 60 * 1000);
+        testGroup.endWork();
+
+        assertEquals(2, early.getCompletedSessions());
+        assertEquals(1, late.getCompletedSessions());
+    }
+
+    @Test
+    void testGroupStopsAfterItsCycles() {
+        Statistics alice = testGroup.join("alice");
+        List<SessionPhase> phases = new ArrayList<>();
+        testGroup.getSchedule().subscribe((session, type) -> {
+            if (type == SessionEventType.WORK_STARTED || type == SessionEventType.BREAK_STARTED) {
+                phases.add(session.getPhase());
+            }
+        });
+        testGroup.start();
+        testSimulation.advance(24 * 60 * 60 * 1000);
+
+        assertEquals(4, testGroup.getCompletedCycles());
+        assertEquals(4, alice.getCompletedSessions());
+        assertEquals(List.of(SessionPhase.WORK, SessionPhase.SHORT_BREAK, SessionPhase.WORK,
+                SessionPhase.SHORT_BREAK, SessionPhase.WORK, SessionPhase.LONG_BREAK, SessionPhase.WORK), phases);
+        assertFalse(testGroup.getSchedule().isRunning());
+        assertEquals(SessionPhase.WORK, testGroup.getSchedule().getPhase());
+        assertEquals(1500, testGroup.getSchedule().getCurrentDuration());
+        assertEquals(0, testSimulation.getPendingCount());
+
+        testGroup.start();
+        assertEquals(0, testGroup.getCompletedCycles());
+        testGroup.stop();
+        assertFalse(testGroup.getSchedule().isRunning());
+    }
+}
@@ -0,0 +1,108 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class LatencyHistogramTest {
+    private LatencyHistogram testHistogram;
+
+    @BeforeEach
+    void runBefore() {
+        testHistogram = new LatencyHistogram();
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(0, testHistogram.getCount());
+        assertEquals(0, testHistogram.getP99());
+        assertEquals(0, testHistogram.getMax());
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        for (int i = 0; i < 10; i++) {
+            testHistogram.record(i);
+        }
+        testHistogram.record(-5);
+        assertEquals(11, testHistogram.getCount());
+        assertEquals(4, testHistogram.getP50());
+        assertEquals(9, testHistogram.getMax());
+        assertEquals(9, testHistogram.getValueAtPercentile(100));
+        assertEquals(0, testHistogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    void testRecordManyTimes() {
+        testHistogram.record(1000, 99);
+        testHistogram.record(5000);
+        assertEquals(100, testHistogram.getCount());
+        assertTrue(Math.abs(testHistogram.getP50() - 1000) <= 1000 * 0.04);
+        assertEquals(5000, testHistogram.getMax());
+    }
+
+    @Test
+    void testRecordAll() {
+        long[] batch = {1000, 1001, 1002, 5000, 1000, -3, 0};
+        testHistogram.recordAll(batch, 6);
+        assertEquals(6, testHistogram.getCount());
+        assertEquals(5000, testHistogram.getMax());
+        assertEquals(0, testHistogram.getValueAtPercentile(0));
+        assertTrue(Math.abs(testHistogram.getP50() - 1000) <= 1000 * 0.04);
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        // one million latencies of 1..1000 microseconds
+        for (int i = 1; i <= 1_000_000; i++) {
+            testHistogram.record((i % 1000 + 1) * 1000L);
+        }
+        assertWithin(500_000, testHistogram.getP50());
+        assertWithin(990_000, testHistogram.getP99());
+        assertWithin(999_000, testHistogram.getP999());
+        assertEquals(1_000_000, testHistogram.getMax());
+        assertEquals(1_000_000, testHistogram.getCount());
+    }
+
+    @Test
+    void testLargeValues() {
+        testHistogram.record(Long.MAX_VALUE);
+        testHistogram.record(3_600_000_000_000L);
+        assertEquals(Long.MAX_VALUE, testHistogram.getMax());
+        assertWithin(3_600_000_000_000L, testHistogram.getP50());
+        assertEquals(Long.MAX_VALUE, testHistogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void testAdd() {
+        LatencyHistogram other = new LatencyHistogram();
+        testHistogram.record(1000);
+        other.record(2000);
+        other.record(3000);
+        testHistogram.add(other);
+        assertEquals(3, testHistogram.getCount());
+        assertWithin(2000, testHistogram.getP50());
+        assertEquals(3000, testHistogram.getMax());
+    }
+
+    @Test
+    void testHighestValue() {
+        LatencyHistogram bounded = new LatencyHistogram(1 << 20);
+        bounded.record(1500);
+        bounded.record(1L << 40);
+        assertEquals(1L << 20, bounded.getMax());
+        assertWithin(1500, bounded.getP50());
+
+        testHistogram.record(1000);
+        testHistogram.record(1L << 30);
+        bounded.add(testHistogram);
+        assertEquals(4, bounded.getCount());
+        assertEquals(1L << 20, bounded.getValueAtPercentile(75));
+        testHistogram.add(bounded);
+        assertEquals(6, testHistogram.getCount());
+        assertWithin(1500, testHistogram.getValueAtPercentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.04, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -2,6 +2,13 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 public class PomodoroSessionTest {
@@ -27,6 +34,15 @@ public class PomodoroSessionTest {
         assertEquals(600, testPomodoro.getLongBreakDuration());
     }
 
+    @Test
+    void testConstructorRejectsEmptyRound() {
+        assertThrows(IllegalArgumentException.class, () -> new PomodoroSession(0, 0, 0, testStat));
+        testPomodoro = new PomodoroSession(0, 0, 1, testStat, new SimulationScheduler());
+        testPomodoro.catchUp(3 * 60 * 1000);
+        assertEquals(SessionPhase.LONG_BREAK, testPomodoro.getPhase());
+        assertEquals(60, testPomodoro.getCurrentDuration());
+    }
+
     @Test
     public void testStartWork() {
         testPomodoro.startWork();
@@ -107,4 +123,463 @@ public class PomodoroSessionTest {
         assertEquals(testPomodoro.getLongBreakDuration(), testPomodoro.getCurrentDuration());
         assertEquals(3, testStat.getCompletedSessions());
     }
+
+    @Test
+    public void testStopFreezesCurrentDuration() throws InterruptedException {
+        testPomodoro.startWork();
+        testPomodoro.stop();
+        int frozen = testPomodoro.getCurrentDuration();
+
+        Thread.sleep(1100);
+
+        assertEquals(frozen, testPomodoro.getCurrentDuration());
+        testPomodoro.startTimer();
+        assertTrue(testPomodoro.isRunning());
+        assertEquals(frozen, testPomodoro.getCurrentDuration());
+    }
+
+    // the phase ends with one wakeup at its deadline, with no per-second ticks in between
+    @Test
+    public void testWorkEndsAtDeadline() throws InterruptedException {
+        testPomodoro.startWork();
+        testPomodoro.setCurrentDuration(1);
+        assertEquals(1, testPomodoro.getCurrentDuration());
+
+        Thread.sleep(1500);
+
+        assertTrue(testPomodoro.isOnBreak());
+        assertEquals(1, testStat.getCompletedSessions());
+        assertEquals(testPomodoro.getShortBreakDuration(), testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testPhaseAndCycleFollowTransitions() {
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(0, testPomodoro.getCycle());
+
+        testPomodoro.startWork();
+        testPomodoro.endWork();
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        testPomodoro.resetTimer();
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(4, testPomodoro.getCycle());
+    }
+
+    @Test
+    public void testSettersKeepStateConsistent() {
+        testPomodoro.setOnBreak(true);
+        testPomodoro.setCurrentDuration(42);
+        testPomodoro.setRunning(true);
+        assertTrue(testPomodoro.isRunning());
+        assertTrue(testPomodoro.isOnBreak());
+        assertEquals(42, testPomodoro.getCurrentDuration());
+
+        testPomodoro.setRunning(false);
+        testPomodoro.setOnBreak(false);
+        assertFalse(testPomodoro.isRunning());
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(42, testPomodoro.getCurrentDuration());
+    }
+
+    // a stop() racing with phase changes on other threads must always leave the session stopped
+    @Test
+    public void testStopWinsOverConcurrentTransitions() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    testPomodoro.startWork();
+                    testPomodoro.startTimer();
+                    testPomodoro.stop();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        testPomodoro.stop();
+
+        assertFalse(testPomodoro.isRunning());
+        int frozen = testPomodoro.getCurrentDuration();
+        Thread.sleep(1100);
+        assertFalse(testPomodoro.isRunning());
+        assertEquals(frozen, testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testStopAtPhaseBoundaryWins() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.subscribe((session, type) -> {
+            if (type == SessionEventType.WORK_ENDED) {
+                session.stop();
+            }
+        });
+        testPomodoro.startWork();
+        simulation.advance(20 * 60 * 1000);
+
+        assertFalse(testPomodoro.isRunning());
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(4 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(1, testStat.getCompletedSessions());
+        assertEquals(0, simulation.getPendingCount());
+        simulation.advance(10 * 60 * 1000);
+        assertFalse(testPomodoro.isRunning());
+    }
+
+    @Test
+    public void testStartTimerAtPhaseBoundaryStartsNextPhaseOnce() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.subscribe((session, type) -> {
+            if (type == SessionEventType.WORK_ENDED) {
+                session.stop();
+                session.startTimer();
+            }
+        });
+        testPomodoro.startWork();
+        simulation.advance(20 * 60 * 1000);
+
+        assertTrue(testPomodoro.isRunning());
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(4 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(1, testStat.getCompletedSessions());
+        simulation.advance(4 * 60 * 1000);
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(1, testStat.getCompletedSessions());
+    }
+
+    @Test
+    public void testListenerReceivesTransitions() {
+        List<SessionEventType> events = new ArrayList<>();
+        testPomodoro.subscribe((session, type) -> events.add(type));
+
+        testPomodoro.startWork();
+        testPomodoro.endWork();
+
+        assertEquals(List.of(SessionEventType.WORK_STARTED, SessionEventType.WORK_ENDED,
+                SessionEventType.BREAK_STARTED), events);
+    }
+
+    @Test
+    public void testCancelledSubscriptionReceivesNothing() {
+        List<SessionEventType> events = new ArrayList<>();
+        SessionSubscription subscription = testPomodoro.subscribe((session, type) -> events.add(type));
+        subscription.cancel();
+
+        testPomodoro.startWork();
+        assertTrue(subscription.isCancelled());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testThrowingListenerDoesNotStopOthers() {
+        List<SessionEventType> events = new ArrayList<>();
+        Thread.UncaughtExceptionHandler previous = Thread.currentThread().getUncaughtExceptionHandler();
+        Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> { });
+        try {
+            testPomodoro.subscribe((session, type) -> {
+                throw new IllegalStateException("broken listener");
+            });
+            testPomodoro.subscribe((session, type) -> events.add(type));
+            testPomodoro.startWork();
+        } finally {
+            Thread.currentThread().setUncaughtExceptionHandler(previous);
+        }
+        assertEquals(List.of(SessionEventType.WORK_STARTED), events);
+    }
+
+    // ticks are pushed while running and stop as soon as the session is stopped
+    @Test
+    public void testTicksOnlyWhileRunning() throws InterruptedException {
+        List<SessionEventType> events = Collections.synchronizedList(new ArrayList<>());
+        testPomodoro.subscribe((session, type) -> events.add(type), 200);
+        testPomodoro.startWork();
+
+        Thread.sleep(1100);
+        testPomodoro.stop();
+        int ticks = Collections.frequency(events, SessionEventType.TICK);
+        assertTrue(ticks >= 4);
+
+        Thread.sleep(500);
+        assertEquals(ticks, Collections.frequency(events, SessionEventType.TICK));
+    }
+
+    @Test
+    public void testCatchUpWithinPhase() {
+        testPomodoro.catchUp(5 * 60 * 1000);
+        assertEquals(15 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(0, testStat.getCompletedSessions());
+        assertFalse(testPomodoro.isRunning());
+    }
+
+    @Test
+    public void testCatchUpCreditsWorkAndPicksBreak() {
+        testPomodoro.setCurrentDuration(60);
+        // 1 minute of work, 4 of short break, 20 of work, then 2 minutes into the next short break
+        testPomodoro.catchUp(27 * 60 * 1000);
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(2 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(2, testStat.getCompletedSessions());
+        assertEquals(2 * 1200, testStat.getTotalWorkTime());
+        assertEquals(3, testPomodoro.getCycle());
+
+        testPomodoro.catchUp(2 * 60 * 1000 + 20 * 60 * 1000 + 1000);
+        assertEquals(SessionPhase.LONG_BREAK, testPomodoro.getPhase());
+        assertEquals(8 * 60 - 1, testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testCatchUpSkipsWholeRounds() {
+        // work, short break, then 1000 rounds of 76 minutes, then 5 minutes into work
+        long minutes = 20 + 4 + 1000L * 76 + 5;
+        testPomodoro.catchUp(minutes * 60 * 1000);
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        assertEquals(15 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(3001, testStat.getCompletedSessions());
+        assertEquals(3001 * 1200, testStat.getTotalWorkTime());
+        assertEquals(2 + 6000, testPomodoro.getCycle());
+    }
+
+    @Test
+    public void testLateTicksAreCoalesced() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        ExecutorScheduler scheduler = new ExecutorScheduler(executor);
+        testPomodoro.setTimer(scheduler);
+        List<SessionEventType> events = Collections.synchronizedList(new ArrayList<>());
+        testPomodoro.subscribe((session, type) -> events.add(type), 50);
+        testPomodoro.startWork();
+        executor.execute(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread.sleep(450);
+        testPomodoro.stop();
+        executor.shutdownNow();
+        assertTrue(scheduler.getMetrics().getCoalescedTicks() >= 3);
+        assertTrue(scheduler.getMetrics().getLateness().getMax() >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(Collections.frequency(events, SessionEventType.TICK) < 9);
+    }
+
+    // the steady-state transition path (scheduler, packed state, statistics, listeners and ticks)
+    // must not allocate beyond the history it retains; measured on one thread by driving the session on
+    // virtual time
+    @Test
+    public void testTransitionsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(25, 5, 10, testStat, simulation);
+        int[] events = new int[1];
+        testPomodoro.subscribe((session, type) -> events[0]++, 60_000);
+        testPomodoro.startWork();
+        driveTransitions(simulation, 10_000);
+
+        long thread = Thread.currentThread().getId();
+        long retainedBefore = testStat.getCompletionLog().getRetainedBytes();
+        long before = threads.getThreadAllocatedBytes(thread);
+        driveTransitions(simulation, 100_000);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before
+                - (testStat.getCompletionLog().getRetainedBytes() - retainedBefore);
+
+        assertTrue(allocated < 10_000, "allocated " + allocated + " bytes in 100k transitions");
+        assertTrue(events[0] > 100_000);
+    }
+
+    // MODIFIES: simulation, testPomodoro
+    // EFFECTS: runs count phase transitions, half of them deadline-driven and half made through the public API
+    private void driveTransitions(SimulationScheduler simulation, int count) {
+        for (int i = 0; i < count / 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                long cycle = testPomodoro.getCycle();
+                while (testPomodoro.getCycle() == cycle) {
+                    simulation.runNext();
+                }
+            }
+            testPomodoro.endWork();
+            testPomodoro.startShortBreak();
+            testPomodoro.startLongBreak();
+            testPomodoro.resetTimer();
+            testPomodoro.startWork();
+        }
+    }
+
+    @Test
+    public void testInactiveSubscriptionOnlyGetsPhaseEvents() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(1, 1, 1, testStat, simulation);
+        List<SessionEventType> events = new ArrayList<>();
+        SessionSubscription subscription = testPomodoro.subscribe((session, type) -> events.add(type), 1000);
+        testPomodoro.startWork();
+        assertEquals(2, simulation.getPendingCount());
+
+        subscription.setActive(false);
+        assertFalse(subscription.isActive());
+        assertEquals(1, simulation.getPendingCount());
+        simulation.advance(60_000);
+        assertEquals(List.of(SessionEventType.WORK_STARTED, SessionEventType.WORK_ENDED,
+                SessionEventType.BREAK_STARTED), events);
+        assertEquals(1, simulation.getPendingCount());
+
+        events.clear();
+        simulation.advance(30_500);
+        subscription.setActive(true);
+        simulation.advance(2_000);
+        assertEquals(List.of(SessionEventType.TICK, SessionEventType.TICK), events);
+        assertEquals(28, testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testChangeTickGranularity() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(1, 1, 1, testStat, simulation);
+        int[] ticks = new int[1];
+        SessionSubscription subscription = testPomodoro.subscribe((session, type) -> {
+            if (type == SessionEventType.TICK) {
+                ticks[0]++;
+            }
+        });
+        testPomodoro.startWork();
+        simulation.advance(10_000);
+        assertEquals(0, ticks[0]);
+
+        subscription.setTickMillis(100);
+        assertEquals(100, subscription.getTickMillis());
+        simulation.advance(1_000);
+        assertEquals(10, ticks[0]);
+
+        subscription.setTickMillis(0);
+        simulation.advance(10_000);
+        assertEquals(10, ticks[0]);
+        assertEquals(1, simulation.getPendingCount());
+    }
+
+    @Test
+    public void testLongBreakIntervalBelowOneTakesDefault() {
+        SessionConfig config = new SessionConfig(20, 4, 8, 0);
+        assertEquals(SessionConfig.DEFAULT_LONG_BREAK_INTERVAL, config.getLongBreakInterval());
+        testPomodoro = new PomodoroSession(config, testStat, new SimulationScheduler());
+        testPomodoro.endWork();
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(SessionPhase.LONG_BREAK, new SessionConfig(20, 4, 8, -2).breakAfter(3));
+    }
+
+    @Test
+    public void testActualPhaseDurations() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.startWork();
+        simulation.advance(5 * 60 * 1000);
+        testPomodoro.stop();
+        simulation.advance(10 * 60 * 1000);
+        testPomodoro.startTimer();
+        simulation.advance(15 * 60 * 1000);
+        simulation.advance(4 * 60 * 1000);
+
+        PhaseDurations durations = testStat.getPhaseDurations();
+        assertEquals(1, durations.getWork().getCount());
+        assertEquals(20 * 60, durations.getWork().getMax());
+        assertEquals(1, durations.getBreaks().getCount());
+        assertEquals(4 * 60, durations.getBreaks().getP50());
+        assertEquals(1, durations.getEarlyStops());
+
+        testPomodoro.resetTimer();
+        testPomodoro.resetTimer();
+        testPomodoro.endWork();
+        assertEquals(2, durations.getEarlyStops());
+        assertEquals(1, durations.getWork().getCount());
+    }
+
+    @Test
+    public void testReconfigureCurrentPhase() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.startWork();
+        simulation.advance(5 * 60 * 1000);
+
+        testPomodoro.reconfigure(new SessionConfig(30, 4, 8, 3), ReconfigureMode.CURRENT_PHASE);
+        assertEquals(1800, testPomodoro.getWorkDuration());
+        assertEquals(25 * 60, testPomodoro.getCurrentDuration());
+        simulation.advance(25 * 60 * 1000 - 1);
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+        simulation.advance(1);
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(1800, testStat.getTotalWorkTime());
+
+        simulation.advance(60 * 1000);
+        testPomodoro.reconfigure(new SessionConfig(30, 1, 8, 3), ReconfigureMode.CURRENT_PHASE);
+        simulation.advance(0);
+        assertEquals(SessionPhase.WORK, testPomodoro.getPhase());
+    }
+
+    @Test
+    public void testReconfigureAtPhaseBoundary() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.subscribe((session, type) -> {
+            if (type == SessionEventType.WORK_ENDED) {
+                session.reconfigure(new SessionConfig(20, 6, 8, 4), ReconfigureMode.CURRENT_PHASE);
+            }
+        });
+        testPomodoro.startWork();
+        simulation.advance(20 * 60 * 1000);
+
+        assertTrue(testPomodoro.isRunning());
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(6 * 60, testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testReconfigureNextPhase() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        testPomodoro = new PomodoroSession(20, 4, 8, testStat, simulation);
+        testPomodoro.startWork();
+        simulation.advance(5 * 60 * 1000);
+
+        testPomodoro.reconfigure(new SessionConfig(30, 6, 8, 3), ReconfigureMode.NEXT_PHASE);
+        assertEquals(15 * 60, testPomodoro.getCurrentDuration());
+        simulation.advance(15 * 60 * 1000);
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(6 * 60, testPomodoro.getCurrentDuration());
+        assertEquals(1800, testStat.getTotalWorkTime());
+    }
+
+    @Test
+    public void testReconfigureStoppedSession() {
+        testPomodoro.setCurrentDuration(600);
+        testPomodoro.reconfigure(new SessionConfig(10, 4, 8, 3), ReconfigureMode.CURRENT_PHASE);
+        assertEquals(0, testPomodoro.getCurrentDuration());
+        assertFalse(testPomodoro.isRunning());
+        testPomodoro.reconfigure(new SessionConfig(15, 4, 8, 3), ReconfigureMode.CURRENT_PHASE);
+        assertEquals(300, testPomodoro.getCurrentDuration());
+    }
+
+    @Test
+    public void testLongBreakInterval() {
+        testPomodoro.reconfigure(new SessionConfig(20, 4, 8, 2), ReconfigureMode.NEXT_PHASE);
+        testPomodoro.startWork();
+        testPomodoro.endWork();
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        testPomodoro.startWork();
+        testPomodoro.endWork();
+        assertEquals(SessionPhase.LONG_BREAK, testPomodoro.getPhase());
+        testPomodoro.stop();
+
+        // rounds are now two work phases, a short break and a long break: 52 minutes
+        testPomodoro.setCurrentDuration(0);
+        testPomodoro.catchUp(100L * 52 * 60 * 1000 + 21 * 60 * 1000);
+        assertEquals(2 + 200 + 1, testStat.getCompletedSessions());
+        assertEquals(SessionPhase.SHORT_BREAK, testPomodoro.getPhase());
+        assertEquals(3 * 60, testPomodoro.getCurrentDuration());
+    }
 }
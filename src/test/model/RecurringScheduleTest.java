@@ -0,0 +1,100 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class RecurringScheduleTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    // Monday 12 October 2026, 08:00 UTC
+    private static final long MONDAY_8AM = ZonedDateTime.of(2026, 10, 12, 8, 0, 0, 0, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
+    private SimulationScheduler testSimulation;
+    private RecurringSchedule testSchedule;
+
+    @BeforeEach
+    void runBefore() {
+        testSimulation = new SimulationScheduler(MONDAY_8AM);
+        testSchedule = new RecurringSchedule(testSimulation);
+    }
+
+    @Test
+    void testRuleNextAfter() {
+        RecurrenceRule weekdays = RecurrenceRule.weekdays(LocalTime.of(9, 0), ZoneOffset.UTC);
+        assertEquals(MONDAY_8AM + HOUR, weekdays.nextAfter(MONDAY_8AM));
+        assertEquals(MONDAY_8AM + 25 * HOUR, weekdays.nextAfter(MONDAY_8AM + HOUR));
+        long friday = MONDAY_8AM + 4 * 24 * HOUR + HOUR;
+        assertEquals(friday + 3 * 24 * HOUR, weekdays.nextAfter(friday));
+        assertTrue(weekdays.includes(DayOfWeek.FRIDAY));
+        assertFalse(weekdays.includes(DayOfWeek.SUNDAY));
+
+        RecurrenceRule sundays = new RecurrenceRule(EnumSet.of(DayOfWeek.SUNDAY), LocalTime.of(9, 0),
+                ZoneOffset.UTC);
+        assertEquals(MONDAY_8AM + 6 * 24 * HOUR + HOUR, sundays.nextAfter(MONDAY_8AM));
+    }
+
+    @Test
+    void testRuleKeepsLocalTimeAcrossDaylightSaving() {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        RecurrenceRule daily = RecurrenceRule.daily(LocalTime.of(9, 0), berlin);
+        // clocks go back on Sunday 25 October 2026, so that day is 25 hours long
+        long saturday = ZonedDateTime.of(2026, 10, 24, 9, 0, 0, 0, berlin).toInstant().toEpochMilli();
+        long sunday = daily.nextAfter(saturday);
+        assertEquals(25 * HOUR, sunday - saturday);
+        assertEquals(9, ZonedDateTime.ofInstant(java.time.Instant.ofEpochMilli(sunday), berlin).getHour());
+    }
+
+    @Test
+    void testStartsEverySessionOnItsDays() {
+        RecurrenceRule weekdays = RecurrenceRule.weekdays(LocalTime.of(9, 0), ZoneOffset.UTC);
+        List<PomodoroSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+            sessions.add(session);
+            testSchedule.add("user-" + i, session, weekdays);
+        }
+        assertEquals(1000, testSchedule.size());
+        assertEquals(1, testSimulation.getPendingCount());
+
+        testSimulation.advance(HOUR - 1);
+        assertFalse(sessions.get(0).isRunning());
+        testSimulation.advance(1);
+        for (PomodoroSession session : sessions) {
+            assertTrue(session.isRunning());
+            session.stop();
+        }
+        assertEquals(MONDAY_8AM + 25 * HOUR, testSchedule.getNextStart("user-0"));
+
+        testSimulation.advance(4 * 24 * HOUR);
+        assertEquals(MONDAY_8AM + 7 * 24 * HOUR + HOUR, testSchedule.getNextStart("user-0"));
+    }
+
+    @Test
+    void testMixedRulesAndRemove() {
+        PomodoroSession early = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+        PomodoroSession late = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+        testSchedule.add("late", late, RecurrenceRule.daily(LocalTime.of(11, 0), ZoneOffset.UTC));
+        testSchedule.add("early", early, RecurrenceRule.daily(LocalTime.of(8, 30), ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> testSchedule.add("early", early,
+                RecurrenceRule.daily(LocalTime.of(8, 30), ZoneOffset.UTC)));
+
+        testSimulation.advance(HOUR);
+        assertTrue(early.isRunning());
+        assertFalse(late.isRunning());
+
+        assertTrue(testSchedule.remove("late"));
+        assertFalse(testSchedule.remove("late"));
+        assertEquals(-1, testSchedule.getNextStart("late"));
+        testSimulation.advance(3 * HOUR);
+        assertFalse(late.isRunning());
+    }
+}
@@ -0,0 +1,292 @@
+package model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class SessionEngineTest {
+    private SessionEngine testEngine;
+
+    @BeforeEach
+    void runBefore() {
+        testEngine = new SessionEngine(2);
+    }
+
+    @AfterEach
+    void runAfter() {
+        testEngine.shutdown();
+    }
+
+    @Test
+    void testCreateAndLookup() {
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        assertSame(session, testEngine.lookup("alice"));
+        assertNull(testEngine.lookup("bob"));
+        assertEquals(1, testEngine.size());
+        assertEquals(2, testEngine.getShardCount());
+        assertEquals(1200, session.getWorkDuration());
+    }
+
+    @Test
+    void testCreateDuplicateId() {
+        testEngine.create("alice", 20, 4, 8);
+        assertThrows(IllegalArgumentException.class, () -> testEngine.create("alice", 25, 5, 10));
+    }
+
+    @Test
+    void testStartStopReset() {
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        assertTrue(testEngine.start("alice"));
+        assertTrue(session.isRunning());
+        assertTrue(testEngine.stop("alice"));
+        assertFalse(session.isRunning());
+        session.setOnBreak(true);
+        assertTrue(testEngine.reset("alice"));
+        assertFalse(session.isOnBreak());
+
+        assertFalse(testEngine.start("bob"));
+        assertFalse(testEngine.stop("bob"));
+        assertFalse(testEngine.reset("bob"));
+    }
+
+    @Test
+    void testRemove() {
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        testEngine.start("alice");
+        assertSame(session, testEngine.remove("alice"));
+        assertFalse(session.isRunning());
+        assertNull(testEngine.lookup("alice"));
+        assertNull(testEngine.remove("alice"));
+        assertTrue(testEngine.ids().isEmpty());
+    }
+
+    @Test
+    void testDetachDoesNotStop() {
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        session.startWork();
+        assertSame(session, testEngine.detach("alice"));
+        assertNull(testEngine.lookup("alice"));
+        assertNull(testEngine.detach("alice"));
+        assertTrue(session.isRunning());
+        assertEquals(0, session.getStatistics().getPhaseDurations().getEarlyStops());
+
+        testEngine.register("alice", session);
+        testEngine.remove("alice");
+        assertEquals(1, session.getStatistics().getPhaseDurations().getEarlyStops());
+    }
+
+    @Test
+    void testEngineDrivesPhaseEnd() throws InterruptedException {
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        CountDownLatch breakStarted = new CountDownLatch(1);
+        session.subscribe((s, type) -> {
+            if (type == SessionEventType.BREAK_STARTED) {
+                breakStarted.countDown();
+            }
+        });
+        testEngine.start("alice");
+        session.setCurrentDuration(1);
+
+        assertTrue(breakStarted.await(3, TimeUnit.SECONDS));
+        assertEquals(1, session.getStatistics().getCompletedSessions());
+    }
+
+    @Test
+    void testConcurrentCreateAndStart() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    String id = "user-" + offset + "-" + i;
+                    testEngine.create(id, 25, 5, 10);
+                    testEngine.start(id);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, testEngine.size());
+        assertTrue(testEngine.lookup("user-3-999").isRunning());
+    }
+
+    @Test
+    void testShardMetricsRecordLateness() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        PomodoroSession session = testEngine.create("alice", 20, 4, 8);
+        session.subscribe((s, type) -> {
+            if (type == SessionEventType.BREAK_STARTED) {
+                fired.countDown();
+            }
+        });
+        session.startWork();
+        session.setCurrentDuration(0);
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        awaitFired(1);
+
+        SchedulerMetrics total = testEngine.getMetrics();
+        assertTrue(total.getFiredCount() >= 1);
+        assertTrue(total.getLateness().getMax() < TimeUnit.SECONDS.toNanos(1));
+        long perShard = 0;
+        for (int i = 0; i < testEngine.getShardCount(); i++) {
+            perShard += testEngine.getShardMetrics(i).getFiredCount();
+        }
+        assertEquals(total.getFiredCount(), perShard);
+    }
+
+    @Test
+    void testReconfigureAll() {
+        PomodoroSession alice = testEngine.create("alice", 20, 4, 8);
+        PomodoroSession bob = testEngine.create("bob", new SessionConfig(25, 5, 10, 4), new Statistics());
+        assertEquals(4, bob.getConfig().getLongBreakInterval());
+        testEngine.start("alice");
+
+        SessionConfig config = new SessionConfig(50, 10, 30, 2);
+        assertEquals(2, testEngine.reconfigureAll(config, ReconfigureMode.NEXT_PHASE));
+        assertSame(config, alice.getConfig());
+        assertSame(config, bob.getConfig());
+        assertTrue(alice.isRunning());
+        assertTrue(alice.getCurrentDuration() <= 20 * 60);
+    }
+
+    @Test
+    void testRebalanceSpreadsHotShard() throws InterruptedException {
+        SessionScheduler hot = testEngine.schedulerFor("seed");
+        List<PomodoroSession> sessions = createOn(hot, 100);
+        assertEquals(0, testEngine.rebalance());
+        endPhases(sessions, 100);
+        assertArrayEquals(new int[] {100, 0}, sortedShardSizes());
+
+        assertEquals(50, testEngine.rebalance());
+        awaitShardSizes(50, 50);
+        assertEquals(0, testEngine.rebalance());
+        int movedOff = 0;
+        for (String id : testEngine.ids()) {
+            assertSame(testEngine.lookup(id).getScheduler(), testEngine.schedulerFor(id));
+            movedOff += testEngine.schedulerFor(id) == hot ? 0 : 1;
+        }
+        assertEquals(50, movedOff);
+
+        for (PomodoroSession session : sessions) {
+            assertTrue(session.isOnBreak());
+        }
+        endPhases(sessions, 200);
+        assertTrue(testEngine.getShardMetrics(0).getFiredCount() >= 50);
+        assertTrue(testEngine.getShardMetrics(1).getFiredCount() >= 50);
+    }
+
+    @Test
+    void testRebalanceMovesOnlyBusySessions() throws InterruptedException {
+        SessionScheduler hot = testEngine.schedulerFor("seed");
+        List<PomodoroSession> sessions = createOn(hot, 100);
+        List<PomodoroSession> busy = sessions.subList(0, 40);
+        endPhases(busy, 40);
+
+        assertEquals(20, testEngine.rebalance());
+        awaitShardSizes(80, 20);
+        for (PomodoroSession session : sessions) {
+            assertTrue(session.getScheduler() == hot || busy.contains(session));
+        }
+    }
+
+    @Test
+    void testRebalanceSkipsStoppedSessions() throws InterruptedException {
+        List<PomodoroSession> sessions = createOn(testEngine.schedulerFor("seed"), 10);
+        endPhases(sessions, 10);
+        for (PomodoroSession session : sessions) {
+            session.stop();
+        }
+        assertEquals(0, testEngine.rebalance());
+    }
+
+    @Test
+    void testAggregateAndLeaders() {
+        Statistics team = createUsersAndTeam();
+        team.recordCompletion(1_780_000_000_000L, 1500);
+
+        Statistics total = testEngine.aggregateStatistics(ZoneOffset.UTC);
+        assertEquals(45 + 1, total.getCompletedSessions());
+        assertEquals(4500 + 1500, total.getTotalWorkTime());
+        assertEquals(1, total.getRollup().getSessions(RollupUnit.DAY, 1_780_000_000_000L));
+
+        List<String> leaders = testEngine.leaders(3);
+        assertEquals(3, leaders.size());
+        assertTrue(leaders.get(0).startsWith("shared-"));
+        assertTrue(leaders.get(1).startsWith("shared-"));
+        assertEquals("user-9", leaders.get(2));
+        assertEquals(12, testEngine.leaders(20).size());
+    }
+
+    @Test
+    void testPhaseDurationsCountSharedStatisticsOnce() {
+        Statistics team = createUsersAndTeam();
+        team.getPhaseDurations().recordBreak(300);
+        testEngine.lookup("user-3").getStatistics().getPhaseDurations().recordBreak(600);
+        PhaseDurations durations = testEngine.getPhaseDurations();
+        assertEquals(2, durations.getBreaks().getCount());
+        assertEquals(600, durations.getBreaks().getMax());
+        assertNull(testEngine.lookup("user-4").getStatistics().getRecordedPhaseDurations());
+    }
+
+    private Statistics createUsersAndTeam() {
+        Statistics team = new Statistics();
+        for (int i = 0; i < 10; i++) {
+            Statistics stat = new Statistics(i, i * 100L);
+            testEngine.create("user-" + i, new SessionConfig(25, 5, 10, 4), stat);
+        }
+        testEngine.create("shared-1", new SessionConfig(25, 5, 10, 4), team);
+        testEngine.create("shared-2", new SessionConfig(25, 5, 10, 4), team);
+        return team;
+    }
+
+    private List<PomodoroSession> createOn(SessionScheduler shard, int count) {
+        List<PomodoroSession> sessions = new ArrayList<>();
+        for (int i = 0; sessions.size() < count; i++) {
+            if (testEngine.schedulerFor("user-" + i) == shard) {
+                sessions.add(testEngine.create("user-" + i, 20, 4, 8));
+            }
+        }
+        return sessions;
+    }
+
+    private void endPhases(List<PomodoroSession> sessions, long firedAfter) throws InterruptedException {
+        for (PomodoroSession session : sessions) {
+            if (!session.isRunning()) {
+                session.startWork();
+            }
+            session.setCurrentDuration(0);
+        }
+        awaitFired(firedAfter);
+    }
+
+    private int[] sortedShardSizes() {
+        int[] sizes = testEngine.getShardSizes();
+        Arrays.sort(sizes);
+        return new int[] {sizes[1], sizes[0]};
+    }
+
+    private void awaitShardSizes(int larger, int smaller) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!Arrays.equals(new int[] {larger, smaller}, sortedShardSizes()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertArrayEquals(new int[] {larger, smaller}, sortedShardSizes());
+    }
+
+    private void awaitFired(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (testEngine.getMetrics().getFiredCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, testEngine.getMetrics().getFiredCount());
+    }
+}
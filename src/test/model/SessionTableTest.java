@@ -0,0 +1,117 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class SessionTableTest {
+    private SessionTable testTable;
+    private List<String> transitions;
+    private SessionTable.TransitionListener recorder;
+
+    @BeforeEach
+    void runBefore() {
+        testTable = new SessionTable(2);
+        transitions = new ArrayList<>();
+        recorder = (row, from, to) -> transitions.add(row + ":" + from + "->" + to);
+    }
+
+    @Test
+    void testAdd() {
+        int row = testTable.add(20, 4, 8);
+        int defaults = testTable.add(-1, -1, -1);
+        assertEquals(0, row);
+        assertEquals(1, defaults);
+        assertEquals(1200, testTable.getWorkDuration(row));
+        assertEquals(1500, testTable.getWorkDuration(defaults));
+        assertEquals(1200, testTable.getCurrentDuration(row));
+        assertFalse(testTable.isRunning(row));
+        assertEquals(SessionPhase.WORK, testTable.getPhase(row));
+    }
+
+    @Test
+    void testLongBreakInterval() {
+        int everySecond = testTable.add(new SessionConfig(20, 4, 8, 2));
+        int defaulted = testTable.add(new SessionConfig(20, 4, 8, 0));
+        for (int i = 0; i < 3; i++) {
+            testTable.startWork(everySecond);
+            testTable.endWork(everySecond, recorder);
+            testTable.startWork(defaulted);
+            testTable.endWork(defaulted, recorder);
+        }
+        assertEquals(6, transitions.size());
+        assertEquals("0:WORK->LONG_BREAK", transitions.get(2));
+        assertEquals("0:WORK->SHORT_BREAK", transitions.get(4));
+        assertEquals("1:WORK->SHORT_BREAK", transitions.get(3));
+        assertEquals("1:WORK->LONG_BREAK", transitions.get(5));
+    }
+
+    @Test
+    void testAddRejectsEmptyRound() {
+        assertThrows(IllegalArgumentException.class, () -> testTable.add(0, 0, 0));
+        assertEquals(0, testTable.size());
+    }
+
+    @Test
+    void testGrowKeepsRows() {
+        for (int i = 0; i < 100; i++) {
+            testTable.add(i + 1, 5, 10);
+        }
+        assertEquals(100, testTable.size());
+        assertEquals(60, testTable.getWorkDuration(0));
+        assertEquals(6000, testTable.getWorkDuration(99));
+    }
+
+    @Test
+    void testAdvanceOnlyMovesRunningRows() {
+        int running = testTable.add(20, 4, 8);
+        int stopped = testTable.add(20, 4, 8);
+        testTable.startWork(running);
+
+        testTable.advance(61_000, recorder);
+
+        assertEquals(1139, testTable.getCurrentDuration(running));
+        assertEquals(1200, testTable.getCurrentDuration(stopped));
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    void testEndWorkMatchesPomodoroSession() {
+        int row = testTable.add(20, 4, 8);
+        testTable.startWork(row);
+        testTable.endWork(row, recorder);
+        assertTrue(testTable.isOnBreak(row));
+        assertEquals(240, testTable.getCurrentDuration(row));
+        assertEquals(1, testTable.getCompletedSessions(row));
+        assertEquals(1200, testTable.getTotalWorkTime(row));
+    }
+
+    // three work phases in one large step: the third one is followed by the long break
+    @Test
+    void testAdvanceAcrossSeveralPhases() {
+        int row = testTable.add(20, 4, 8);
+        testTable.startWork(row);
+
+        testTable.advance((1200 + 240 + 1200 + 240 + 1200 + 10) * 1000L, recorder);
+
+        assertEquals(3, testTable.getCompletedSessions(row));
+        assertEquals(SessionPhase.LONG_BREAK, testTable.getPhase(row));
+        assertEquals(470, testTable.getCurrentDuration(row));
+        assertEquals(List.of("0:WORK->SHORT_BREAK", "0:SHORT_BREAK->WORK", "0:WORK->SHORT_BREAK",
+                "0:SHORT_BREAK->WORK", "0:WORK->LONG_BREAK"), transitions);
+    }
+
+    @Test
+    void testStopAndResume() {
+        int row = testTable.add(20, 4, 8);
+        testTable.startWork(row);
+        testTable.stop(row);
+        testTable.advance(5000, null);
+        assertEquals(1200, testTable.getCurrentDuration(row));
+        testTable.startTimer(row);
+        testTable.advance(5000, null);
+        assertEquals(1195, testTable.getCurrentDuration(row));
+    }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationSchedulerTest {
+    private SimulationScheduler testSimulation;
+
+    @BeforeEach
+    void runBefore() {
+        testSimulation = new SimulationScheduler(1_000_000L);
+    }
+
+    @Test
+    void testTimersRunAtTheirDeadlinesInOrder() {
+        List<Long> firedAt = new ArrayList<>();
+        long[] delays = {300, 5, 70, 1100, 20};
+        for (long delay : delays) {
+            testSimulation.schedule(new PhaseTimer(() -> firedAt.add(testSimulation.nanoTime())),
+                    TimeUnit.MILLISECONDS.toNanos(delay));
+        }
+        assertEquals(5, testSimulation.getPendingCount());
+
+        assertEquals(4, testSimulation.advance(1000));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), testSimulation.nanoTime());
+        assertEquals(1_001_000L, testSimulation.currentTimeMillis());
+        assertEquals(List.of(5L, 20L, 70L, 300L), toMillis(firedAt));
+        assertTrue(testSimulation.runNext());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1100), testSimulation.nanoTime());
+        assertFalse(testSimulation.runNext());
+        assertEquals(5, testSimulation.getFiredCount());
+    }
+
+    @Test
+    void testCancelAndReschedule() {
+        int[] count = new int[1];
+        PhaseTimer first = new PhaseTimer(() -> count[0]++);
+        PhaseTimer second = new PhaseTimer(() -> count[0] += 10);
+        testSimulation.schedule(first, TimeUnit.MILLISECONDS.toNanos(10));
+        testSimulation.schedule(second, TimeUnit.MILLISECONDS.toNanos(20));
+        testSimulation.cancel(first);
+        assertFalse(first.isScheduled());
+        testSimulation.schedule(second, TimeUnit.MILLISECONDS.toNanos(500));
+
+        testSimulation.advance(100);
+        assertEquals(0, count[0]);
+        testSimulation.advance(400);
+        assertEquals(10, count[0]);
+        assertFalse(second.isScheduled());
+    }
+
+    @Test
+    void testSessionFollowsVirtualTime() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+        session.startWork();
+        testSimulation.advance(TimeUnit.MINUTES.toMillis(10));
+        assertEquals(15 * 60, session.getCurrentDuration());
+
+        session.stop();
+        testSimulation.advance(TimeUnit.HOURS.toMillis(1));
+        assertEquals(15 * 60, session.getCurrentDuration());
+        assertEquals(SessionPhase.WORK, session.getPhase());
+
+        session.startTimer();
+        testSimulation.advance(TimeUnit.MINUTES.toMillis(15));
+        assertEquals(SessionPhase.SHORT_BREAK, session.getPhase());
+        assertEquals(5 * 60, session.getCurrentDuration());
+        assertEquals(1, session.getStatistics().getCompletedSessions());
+    }
+
+    @Test
+    void testLongBreakCadence() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+        List<SessionPhase> phases = new ArrayList<>();
+        session.subscribe((s, type) -> {
+            if (type == SessionEventType.WORK_STARTED || type == SessionEventType.BREAK_STARTED) {
+                phases.add(s.getPhase());
+            }
+        });
+        session.startWork();
+        testSimulation.advance(TimeUnit.MINUTES.toMillis(2 * 95));
+
+        List<SessionPhase> cycle = List.of(SessionPhase.WORK, SessionPhase.SHORT_BREAK,
+                SessionPhase.WORK, SessionPhase.SHORT_BREAK, SessionPhase.WORK, SessionPhase.LONG_BREAK);
+        List<SessionPhase> expected = new ArrayList<>(cycle);
+        expected.addAll(cycle);
+        expected.add(SessionPhase.WORK);
+        assertEquals(expected, phases);
+        assertEquals(6, session.getStatistics().getCompletedSessions());
+    }
+
+    @Test
+    void testDayOfManySessions() {
+        List<PomodoroSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics(), testSimulation);
+            session.startWork();
+            sessions.add(session);
+        }
+        testSimulation.advance(TimeUnit.DAYS.toMillis(1));
+
+        // 15 work, short, work, short, work, long cycles of 95 minutes, then 15 minutes into work
+        for (PomodoroSession session : sessions) {
+            assertEquals(45, session.getStatistics().getCompletedSessions());
+            assertEquals(45 * 25 * 60, session.getStatistics().getTotalWorkTime());
+            assertEquals(SessionPhase.WORK, session.getPhase());
+            assertEquals(10 * 60, session.getCurrentDuration());
+        }
+        assertEquals(1000L * 90, testSimulation.getFiredCount());
+    }
+
+    @Test
+    void testTicksOnVirtualTime() {
+        PomodoroSession session = new PomodoroSession(1, 1, 1, new Statistics(), testSimulation);
+        List<Integer> left = new ArrayList<>();
+        session.subscribe((s, type) -> {
+            if (type == SessionEventType.TICK) {
+                left.add(s.getCurrentDuration());
+            }
+        }, 15_000);
+        session.startWork();
+        testSimulation.advance(60_000);
+        assertEquals(List.of(45, 30, 15), left);
+    }
+
+    private static List<Long> toMillis(List<Long> nanos) {
+        List<Long> millis = new ArrayList<>();
+        for (long n : nanos) {
+            millis.add(TimeUnit.NANOSECONDS.toMillis(n));
+        }
+        return millis;
+    }
+}
@@ -2,6 +2,9 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -71,4 +74,149 @@ public class StatisticsTest {
         assertTrue(tasks.contains(task2));
     }
 
+
+    @Test
+    void testTotalsDoNotOverflow() {
+        testStat.addWork(3_000_000_000L, 1500L * 3_000_000_000L);
+        testStat.addTotalWorkTime(Integer.MAX_VALUE);
+        assertEquals(3_000_000_000L, testStat.getCompletedSessions());
+        assertEquals(1500L * 3_000_000_000L + Integer.MAX_VALUE, testStat.getTotalWorkTime());
+        assertEquals(3_000_000_000L, new Statistics(3_000_000_000L, 5).getCompletedSessions());
+    }
+
+    @Test
+    void testConcurrentCreditsAreNotLost() throws InterruptedException {
+        boolean[] consistent = {true};
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 100_000; i++) {
+                testStat.addWork(1, 1500);
+            }
+        }, () -> {
+            for (int i = 0; i < 10_000; i++) {
+                StatisticsSnapshot snapshot = testStat.snapshot();
+                if (snapshot.getTotalWorkTime() != snapshot.getCompletedSessions() * 1500) {
+                    consistent[0] = false;
+                }
+            }
+        });
+
+        assertTrue(consistent[0]);
+        assertEquals(800_000, testStat.getCompletedSessions());
+        assertEquals(800_000L * 1500, testStat.getTotalWorkTime());
+        StatisticsSnapshot snapshot = testStat.snapshot();
+        assertEquals(800_000, snapshot.getCompletedSessions());
+        assertEquals(800_000L * 1500, snapshot.getTotalWorkTime());
+    }
+
+    // EFFECTS: runs writer on the given number of threads and reader on one more, all at once,
+    //          and waits for every thread to finish
+    private static void runConcurrently(int writers, Runnable writer, Runnable reader) throws InterruptedException {
+        Thread[] threads = new Thread[writers + 1];
+        for (int t = 0; t < writers; t++) {
+            threads[t] = new Thread(writer);
+        }
+        threads[writers] = new Thread(reader);
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    void testConcurrentCompletionsAreNotLost() throws InterruptedException {
+        long end = 1_780_000_000_000L;
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 50_000; i++) {
+                testStat.recordCompletion(end, 1500);
+            }
+        }, () -> {
+            for (int i = 0; i < 1_000; i++) {
+                testStat.getCompletedSessionsBetween(end, end + 1);
+            }
+        });
+
+        assertEquals(400_000, testStat.getCompletedSessions());
+        assertEquals(400_000L * 1500, testStat.getTotalWorkTime());
+        assertEquals(400_000, testStat.getCompletionLog().size());
+        assertEquals(400_000L * 1500, testStat.getWorkTimeBetween(end, end + 1));
+        assertEquals(400_000, testStat.getRollup().getSessions(RollupUnit.DAY, end));
+    }
+
+    @Test
+    void testCreditsWithMoreThreadsThanCells() throws InterruptedException {
+        Thread[] threads = new Thread[Runtime.getRuntime().availableProcessors() * 8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    testStat.addWork(1, 60);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * 20_000L, testStat.getCompletedSessions());
+        assertEquals(threads.length * 20_000L * 60, testStat.snapshot().getTotalWorkTime());
+    }
+
+    @Test
+    void testMergeAddsTotalsRollupsAndTasks() {
+        long noon = 1_780_000_000_000L;
+        testStat.recordCompletion(noon, 1500);
+        testStat.addCompletedTaskList(task1);
+        Statistics other = new Statistics(2, 600);
+        other.recordCompletion(noon + 1000, 1200);
+        other.addCompletedTaskList(task2);
+        other.getPhaseDurations().recordWork(1500);
+        other.getPhaseDurations().recordEarlyStop();
+
+        assertSame(testStat, testStat.merge(other));
+        assertEquals(4, testStat.getCompletedSessions());
+        assertEquals(3300, testStat.getTotalWorkTime());
+        assertEquals(List.of(task1, task2), testStat.getCompletedTaskList());
+        assertEquals(2, testStat.getRollup().getSessions(RollupUnit.HOUR, noon));
+        assertEquals(2700, testStat.getRollup().getWorkTime(RollupUnit.DAY, noon));
+        assertEquals(1, testStat.getCompletionLog().size());
+        assertEquals(3, other.getCompletedSessions());
+        assertEquals(1500, testStat.getPhaseDurations().getWork().getMax());
+        assertEquals(1, testStat.getPhaseDurations().getEarlyStops());
+    }
+
+    @Test
+    void testMergeAcrossRollupZones() {
+        long noon = 1_780_000_000_000L;
+        testStat.recordCompletion(noon, 1500);
+        Statistics tokyo = new Statistics();
+        tokyo.setRollupZone(ZoneId.of("Asia/Tokyo"));
+        tokyo.recordCompletion(noon, 300);
+        testStat.merge(tokyo);
+        assertEquals(2, testStat.getRollup().getSessions(RollupUnit.HOUR, noon));
+        assertEquals(1800, testStat.getRollup().getWorkTime(RollupUnit.DAY, noon));
+    }
+
+    @Test
+    void testAggregateManyStatistics() {
+        List<Statistics> all = new ArrayList<>();
+        long start = 1_780_000_000_000L;
+        for (int i = 0; i < 100_000; i++) {
+            Statistics stat = new Statistics(i % 7, 0);
+            stat.recordCompletion(start + (i % 100) * 3_600_000L, 60);
+            all.add(stat);
+        }
+        Statistics total = Statistics.aggregate(all, ZoneOffset.UTC);
+        long sessions = 100_000;
+        for (int i = 0; i < 100_000; i++) {
+            sessions += i % 7;
+        }
+        assertEquals(sessions, total.getCompletedSessions());
+        assertEquals(100_000L * 60, total.getTotalWorkTime());
+        assertEquals(ZoneOffset.UTC, total.getRollup().getZone());
+        assertEquals(100_000, total.getRollup().getSessionsBetween(RollupUnit.DAY, start, start + 3_600_000L * 24 * 6));
+        assertEquals(1000, total.getRollup().getSessions(RollupUnit.HOUR, start + 99 * 3_600_000L));
+        assertEquals(0, total.getRollup().getSessions(RollupUnit.HOUR, start));
+        assertEquals(0, Statistics.aggregate(new ArrayList<>(), ZoneOffset.UTC).getCompletedSessions());
+    }
 }
@@ -0,0 +1,120 @@
+package model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class TimingWheelTest {
+    private TimingWheel testWheel;
+
+    @BeforeEach
+    void runBefore() {
+        testWheel = new TimingWheel(1, "test-wheel");
+    }
+
+    @AfterEach
+    void runAfter() {
+        testWheel.shutdown();
+    }
+
+    @Test
+    void testShutdownStopsDriver() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, "test-wheel-shutdown");
+        AtomicInteger count = new AtomicInteger();
+        wheel.shutdown();
+        wheel.schedule(new PhaseTimer(count::incrementAndGet), System.nanoTime());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (driverAlive("test-wheel-shutdown") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(driverAlive("test-wheel-shutdown"));
+        assertEquals(0, count.get());
+    }
+
+    // EFFECTS: returns true if a live thread has the given name
+    private static boolean driverAlive(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testScheduleFiresAfterDeadline() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        PhaseTimer timer = new PhaseTimer(fired::countDown);
+        testWheel.schedule(timer, deadline);
+        assertTrue(timer.isScheduled());
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() >= deadline);
+        assertFalse(timer.isScheduled());
+    }
+
+    @Test
+    void testCancelPreventsFiring() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        PhaseTimer timer = new PhaseTimer(count::incrementAndGet);
+        testWheel.schedule(timer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(30));
+        testWheel.cancel(timer);
+        assertFalse(timer.isScheduled());
+
+        Thread.sleep(100);
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    void testRescheduleReplacesDeadline() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        PhaseTimer timer = new PhaseTimer(fired::countDown);
+        testWheel.schedule(timer, System.nanoTime() + TimeUnit.SECONDS.toNanos(60));
+        testWheel.schedule(timer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+    }
+
+    // timers far enough apart to land on different wheel levels must cascade and fire in deadline order
+    @Test
+    void testTimersOnHigherLevelsFireInOrder() throws InterruptedException {
+        int[] delays = {300, 5, 70, 1100, 20};
+        CountDownLatch fired = new CountDownLatch(delays.length);
+        long[] firedAt = new long[delays.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            testWheel.schedule(new PhaseTimer(() -> {
+                firedAt[index] = System.nanoTime();
+                fired.countDown();
+            }), start + TimeUnit.MILLISECONDS.toNanos(delays[i]));
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(firedAt[i] - start >= TimeUnit.MILLISECONDS.toNanos(delays[i]));
+        }
+        assertTrue(firedAt[1] < firedAt[4]);
+        assertTrue(firedAt[4] < firedAt[2]);
+        assertTrue(firedAt[2] < firedAt[0]);
+        assertTrue(firedAt[0] < firedAt[3]);
+    }
+
+    @Test
+    void testManyTimersAllFire() throws InterruptedException {
+        int count = 10000;
+        CountDownLatch fired = new CountDownLatch(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            testWheel.schedule(new PhaseTimer(fired::countDown), start + TimeUnit.MILLISECONDS.toNanos(i % 200));
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class VirtualThreadSchedulerTest {
+    private VirtualThreadScheduler testScheduler;
+    private AtomicInteger threadsStarted;
+
+    @BeforeEach
+    void runBefore() {
+        threadsStarted = new AtomicInteger();
+        testScheduler = new VirtualThreadScheduler(runnable -> {
+            threadsStarted.incrementAndGet();
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }, 100);
+    }
+
+    @Test
+    void testPlatformFactoryMakesDaemonThreads() {
+        Thread thread = VirtualThreadScheduler.platformThreadFactory().newThread(() -> { });
+        assertTrue(thread.isDaemon());
+        assertTrue(thread.getName().startsWith("pomodoro-session-"));
+    }
+
+    // without virtual threads the scheduler refuses to start instead of using a platform thread per session
+    @Test
+    void testCreateNeedsVirtualThreads() {
+        if (VirtualThreadScheduler.isVirtualThreadSupported()) {
+            assertTrue(VirtualThreadScheduler.virtualThreadFactory().newThread(() -> { }).isDaemon());
+            assertNotNull(VirtualThreadScheduler.create());
+        } else {
+            assertThrows(UnsupportedOperationException.class, VirtualThreadScheduler::virtualThreadFactory);
+            assertThrows(UnsupportedOperationException.class, VirtualThreadScheduler::create);
+        }
+    }
+
+    @Test
+    void testTimerRunsOnItsOwnThreadAndIsReused() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(2);
+        PhaseTimer timer = new PhaseTimer(fired::countDown);
+        testScheduler.schedule(timer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+        Thread.sleep(50);
+        testScheduler.schedule(timer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(1, threadsStarted.get());
+    }
+
+    @Test
+    void testCancelPreventsFiring() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        PhaseTimer timer = new PhaseTimer(count::incrementAndGet);
+        testScheduler.schedule(timer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(30));
+        testScheduler.cancel(timer);
+        assertFalse(timer.isScheduled());
+
+        Thread.sleep(100);
+        assertEquals(0, count.get());
+    }
+
+    // a thread left idle longer than the idle timeout exits and a new one is started on demand
+    @Test
+    void testIdleThreadExitsAndRestarts() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(2);
+        PhaseTimer timer = new PhaseTimer(fired::countDown);
+        testScheduler.schedule(timer, System.nanoTime());
+        Thread.sleep(300);
+        testScheduler.schedule(timer, System.nanoTime());
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(2, threadsStarted.get());
+    }
+
+    @Test
+    void testSessionLifecycleOnOwnThread() throws InterruptedException {
+        Statistics stat = new Statistics();
+        PomodoroSession session = new PomodoroSession(20, 4, 8, stat, testScheduler);
+        CountDownLatch breakStarted = new CountDownLatch(1);
+        session.subscribe((s, type) -> {
+            if (type == SessionEventType.BREAK_STARTED) {
+                breakStarted.countDown();
+            }
+        });
+        session.startWork();
+        session.setCurrentDuration(1);
+
+        assertTrue(breakStarted.await(3, TimeUnit.SECONDS));
+        assertEquals(1, stat.getCompletedSessions());
+        assertTrue(session.isOnBreak());
+    }
+}
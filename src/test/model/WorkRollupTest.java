@@ -0,0 +1,141 @@
+package model;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+public class WorkRollupTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private WorkRollup testRollup;
+
+    @BeforeEach
+    void runBefore() {
+        testRollup = new WorkRollup(NEW_YORK);
+    }
+
+    @Test
+    void testBucketsFollowLocalCalendar() {
+        // Sunday 1 November 2026 is the last day of a week, and of daylight saving time in New York
+        long sundayNight = at(2026, 11, 1, 23);
+        long mondayMorning = at(2026, 11, 2, 9);
+        testRollup.record(sundayNight, 1500);
+        testRollup.record(mondayMorning, 1500);
+        testRollup.record(mondayMorning + 10 * 60 * 1000L, 1200);
+
+        assertEquals(2, testRollup.getSessions(RollupUnit.HOUR, mondayMorning));
+        assertEquals(2700, testRollup.getWorkTime(RollupUnit.HOUR, mondayMorning));
+        assertEquals(1, testRollup.getSessions(RollupUnit.DAY, sundayNight));
+        assertEquals(1, testRollup.getSessions(RollupUnit.WEEK, sundayNight));
+        assertEquals(2, testRollup.getSessions(RollupUnit.WEEK, mondayMorning));
+        assertEquals(3, testRollup.getSessions(RollupUnit.MONTH, mondayMorning));
+        assertEquals(0, testRollup.getSessions(RollupUnit.MONTH, at(2026, 10, 31, 12)));
+
+        assertEquals(at(2026, 11, 2, 0), testRollup.getBucketStart(RollupUnit.WEEK, mondayMorning));
+        assertEquals(at(2026, 11, 1, 0), testRollup.getBucketStart(RollupUnit.MONTH, mondayMorning));
+        assertEquals(at(2026, 11, 2, 9), testRollup.getBucketStart(RollupUnit.HOUR, mondayMorning + 1));
+        // the day daylight saving ends is 25 hours long
+        assertEquals(25 * HOUR, at(2026, 11, 2, 0) - testRollup.getBucketStart(RollupUnit.DAY, sundayNight));
+    }
+
+    @Test
+    void testRangesAndRetention() {
+        testRollup = new WorkRollup(ZoneOffset.UTC);
+        long start = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        for (int hour = 0; hour < 24 * 90; hour++) {
+            testRollup.record(start + hour * HOUR, 60);
+        }
+        long end = start + 24 * 90 * HOUR;
+        assertEquals(90 * 24, testRollup.getSessionsBetween(RollupUnit.MONTH, start, end));
+        assertEquals(90 * 24 * 60, testRollup.getWorkTimeBetween(RollupUnit.MONTH, start, end));
+        assertEquals(62 * 24, testRollup.getSessionsBetween(RollupUnit.DAY, start, end));
+        assertEquals(48, testRollup.getSessionsBetween(RollupUnit.HOUR, start, end));
+        assertEquals(0, testRollup.getSessions(RollupUnit.HOUR, start));
+        assertEquals(24, testRollup.getSessions(RollupUnit.DAY, end - 1));
+        assertEquals(31 * 24, testRollup.getSessions(RollupUnit.MONTH, start));
+
+        testRollup.record(start, 60);
+        assertEquals(31 * 24 + 1, testRollup.getSessions(RollupUnit.MONTH, start));
+        assertEquals(0, testRollup.getSessions(RollupUnit.DAY, start));
+    }
+
+    @Test
+    void testYearsNeverExpire() {
+        long old = at(1990, 6, 15, 12);
+        testRollup.record(old, 1500);
+        for (int year = 1991; year <= 2026; year++) {
+            testRollup.record(at(year, 3, 1, 12), 1500);
+        }
+        long now = at(2026, 11, 2, 9);
+        testRollup.record(now, 1500);
+
+        assertEquals(0, testRollup.getSessions(RollupUnit.MONTH, old));
+        assertEquals(1, testRollup.getSessions(RollupUnit.YEAR, old));
+        assertEquals(1500, testRollup.getWorkTime(RollupUnit.YEAR, old));
+        assertEquals(2, testRollup.getSessions(RollupUnit.YEAR, now));
+        assertEquals(38, testRollup.getSessionsBetween(RollupUnit.YEAR, old, at(2027, 1, 1, 0)));
+        assertEquals(10, testRollup.getSessionsBetween(RollupUnit.YEAR, at(1990, 1, 1, 0), at(2000, 1, 1, 0)));
+        assertEquals(at(1990, 1, 1, 0), testRollup.getBucketStart(RollupUnit.YEAR, old));
+
+        WorkRollup copy = new WorkRollup(NEW_YORK);
+        copy.merge(testRollup);
+        assertEquals(1, copy.getSessions(RollupUnit.YEAR, old));
+    }
+
+    @Test
+    void testMonthsAcrossCenturies() {
+        for (LocalDate date = LocalDate.of(1899, 12, 30); date.getYear() < 2101; date = date.plusDays(17)) {
+            WorkRollup rollup = new WorkRollup(NEW_YORK);
+            long noon = date.atTime(12, 0).atZone(NEW_YORK).toInstant().toEpochMilli();
+            rollup.record(noon, 1);
+            long monthStart = date.withDayOfMonth(1).atStartOfDay(NEW_YORK).toInstant().toEpochMilli();
+            assertEquals(1, rollup.getSessions(RollupUnit.MONTH, monthStart), date.toString());
+            assertEquals(0, rollup.getSessions(RollupUnit.MONTH, monthStart - 1), date.toString());
+        }
+    }
+
+    @Test
+    void testStatisticsRollupZone() {
+        Statistics stat = new Statistics();
+        long lateEvening = at(2026, 3, 10, 22);
+        stat.recordCompletion(lateEvening, 1500);
+        stat.setRollupZone(NEW_YORK);
+        assertEquals(1, stat.getRollup().getSessions(RollupUnit.DAY, lateEvening));
+        stat.setRollupZone(ZoneId.of("Asia/Tokyo"));
+        assertEquals(ZoneId.of("Asia/Tokyo"), stat.getRollup().getZone());
+        assertEquals(1, stat.getRollup().getSessions(RollupUnit.DAY, lateEvening));
+        assertEquals(1500, stat.getRollup().getWorkTime(RollupUnit.HOUR, lateEvening));
+    }
+
+    @Test
+    void testMergeIsOrderIndependent() {
+        WorkRollup recent = new WorkRollup(NEW_YORK);
+        WorkRollup old = new WorkRollup(NEW_YORK);
+        long now = at(2026, 6, 10, 12);
+        recent.record(now, 100);
+        old.record(now - 48 * HOUR, 200);
+        old.record(now - HOUR, 300);
+
+        WorkRollup oldFirst = new WorkRollup(NEW_YORK);
+        oldFirst.merge(old);
+        oldFirst.merge(recent);
+        testRollup.merge(recent);
+        testRollup.merge(old);
+        for (WorkRollup merged : new WorkRollup[] {oldFirst, testRollup}) {
+            assertEquals(0, merged.getSessions(RollupUnit.HOUR, now - 48 * HOUR));
+            assertEquals(400, merged.getWorkTimeBetween(RollupUnit.HOUR, now - 60 * HOUR, now + HOUR));
+            assertEquals(3, merged.getSessionsBetween(RollupUnit.DAY, now - 60 * HOUR, now + 24 * HOUR));
+        }
+        assertEquals(1, old.getSessions(RollupUnit.HOUR, now - 48 * HOUR));
+        assertThrows(IllegalArgumentException.class, () -> testRollup.merge(new WorkRollup(ZoneOffset.UTC)));
+    }
+
+    private static long at(int year, int month, int day, int hour) {
+        return ZonedDateTime.of(year, month, day, hour, 0, 0, 0, NEW_YORK).toInstant().toEpochMilli();
+    }
+}
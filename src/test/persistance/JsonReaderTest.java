@@ -1,7 +1,10 @@
 package persistance;
 
 
+import model.PhaseDurations;
 import model.PomodoroSession;
+import model.SessionPhase;
+import model.SimulationScheduler;
 import model.Statistics;
 import model.Task;
 import org.json.JSONArray;
@@ -12,8 +15,11 @@ import persistence.JsonReader;
 import persistence.JsonWriter;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -271,4 +277,76 @@ class JsonReaderTest extends JsonTest {
         assertEquals(1, stats.getCompletedSessions());
         assertTrue(stats.getCompletedTaskList().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRestoreRunningSessionCatchesUp() {
+        try {
+            SimulationScheduler simulation = new SimulationScheduler();
+            Path file = saveStoppedRunningSession(simulation);
+            try {
+                // down for 62 minutes: work, short break, work, short break, then 2 minutes into work
+                simulation.advance(TimeUnit.MINUTES.toMillis(62));
+                PomodoroSession restored = new JsonReader(file.toString()).readPomodoroSession(simulation);
+                assertTrue(restored.isRunning());
+                assertEquals(SessionPhase.WORK, restored.getPhase());
+                assertEquals(23 * 60, restored.getCurrentDuration());
+                assertEquals(2, restored.getStatistics().getCompletedSessions());
+
+                simulation.advance(TimeUnit.MINUTES.toMillis(23));
+                assertEquals(SessionPhase.LONG_BREAK, restored.getPhase());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            fail("IOException should not have been thrown");
+        }
+    }
+
+    // EFFECTS: saves a session driven by simulation while its work phase runs, then stops it,
+    //          and returns the temporary file it was saved to
+    private Path saveStoppedRunningSession(SimulationScheduler simulation) throws IOException {
+        Path file = Files.createTempFile("testRestoreRunningSession", ".json");
+        PomodoroSession ps = new PomodoroSession(25, 5, 10, new Statistics(), simulation);
+        ps.startWork();
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        writer.write(ps, new ArrayList<>());
+        writer.close();
+        ps.stop();
+        return file;
+    }
+
+    @Test
+    void testCompletionHistoryRoundTrip() {
+        Statistics stat = new Statistics();
+        stat.recordCompletion(3_000_000L, 1500);
+        stat.recordCompletion(1_000_000L, 1200);
+        stat.addWork(2, 600);
+
+        Statistics restored = new JsonReader().parseStatistics(stat.toJson());
+        assertEquals(4, restored.getCompletedSessions());
+        assertEquals(3300, restored.getTotalWorkTime());
+        assertEquals(2, restored.getCompletionLog().size());
+        assertEquals(1_000_000L, restored.getCompletionLog().getEnd(0));
+        assertEquals(1500, restored.getWorkTimeBetween(2_000_000L, 4_000_000L));
+    }
+
+    @Test
+    void testPhaseDurationsRoundTrip() {
+        Statistics stat = new Statistics();
+        assertFalse(stat.toJson().has("phaseDurations"));
+        for (int i = 0; i < 10; i++) {
+            stat.getPhaseDurations().recordWork(1500 + i);
+        }
+        stat.getPhaseDurations().recordBreak(300);
+        stat.getPhaseDurations().recordEarlyStop();
+
+        PhaseDurations restored = new JsonReader().parseStatistics(stat.toJson()).getPhaseDurations();
+        assertEquals(10, restored.getWork().getCount());
+        assertEquals(1509, restored.getWork().getMax());
+        assertEquals(stat.getPhaseDurations().getWork().getP50(), restored.getWork().getP50());
+        assertEquals(1, restored.getBreaks().getCount());
+        assertEquals(300, restored.getBreaks().getMax());
+        assertEquals(1, restored.getEarlyStops());
+    }
+}
@@ -0,0 +1,148 @@
+package persistance;
+
+import model.PomodoroSession;
+import model.SessionConfig;
+import model.SessionPhase;
+import model.SimulationScheduler;
+import model.Statistics;
+import model.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.OffHeapSessionStore;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapSessionStoreTest {
+    private OffHeapSessionStore store;
+
+    @BeforeEach
+    void runBefore() {
+        store = new OffHeapSessionStore();
+    }
+
+    @Test
+    void testStoreAndMaterialize() {
+        PomodoroSession session = new PomodoroSession(30, 6, 12, new Statistics(4, 7200));
+        session.setCurrentDuration(900);
+        int slot = store.store(session);
+
+        assertTrue(store.isInUse(slot));
+        assertEquals(1, store.size());
+        PomodoroSession copy = store.materialize(slot);
+        assertEquals(30 * 60, copy.getWorkDuration());
+        assertEquals(6 * 60, copy.getShortBreakDuration());
+        assertEquals(12 * 60, copy.getLongBreakDuration());
+        assertEquals(900, copy.getCurrentDuration());
+        assertFalse(copy.isRunning());
+        assertEquals(4, copy.getStatistics().getCompletedSessions());
+        assertEquals(7200, copy.getStatistics().getTotalWorkTime());
+    }
+
+    @Test
+    void testPhaseIsPreserved() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics());
+        session.startLongBreak();
+        session.stop();
+        int slot = store.store(session);
+
+        assertEquals(SessionPhase.LONG_BREAK, store.getPhase(slot));
+        PomodoroSession copy = store.materialize(slot);
+        assertEquals(SessionPhase.LONG_BREAK, copy.getPhase());
+        assertTrue(copy.isOnBreak());
+    }
+
+    @Test
+    void testRunningSessionResumes() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics());
+        session.startWork();
+        int slot = store.store(session);
+        session.stop();
+
+        PomodoroSession copy = store.materialize(slot);
+        assertTrue(copy.isRunning());
+        copy.stop();
+    }
+
+    @Test
+    void testRunningSessionCatchesUpOnItsScheduler() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics(), simulation);
+        session.startWork();
+        simulation.advance(TimeUnit.MINUTES.toMillis(5));
+        int slot = store.store(session);
+        session.stop();
+
+        // idle for 62 minutes: the rest of work, short break, work, short break, then 7 minutes into work
+        simulation.advance(TimeUnit.MINUTES.toMillis(62));
+        PomodoroSession copy = store.materialize(slot, simulation);
+        assertTrue(copy.isRunning());
+        assertEquals(SessionPhase.WORK, copy.getPhase());
+        assertEquals(18 * 60, copy.getCurrentDuration());
+        assertEquals(2, copy.getStatistics().getCompletedSessions());
+        simulation.advance(TimeUnit.MINUTES.toMillis(18));
+        assertEquals(SessionPhase.LONG_BREAK, copy.getPhase());
+    }
+
+    @Test
+    void testLargeTotalsAreNotTruncated() {
+        Statistics stat = new Statistics(5_000_000_000L, 1500L * 5_000_000_000L);
+        PomodoroSession session = new PomodoroSession(25, 5, 10, stat);
+        int slot = store.store(session);
+
+        assertEquals(5_000_000_000L, store.getCompletedSessions(slot));
+        PomodoroSession copy = store.materialize(slot);
+        assertEquals(5_000_000_000L, copy.getStatistics().getCompletedSessions());
+        assertEquals(1500L * 5_000_000_000L, copy.getStatistics().getTotalWorkTime());
+    }
+
+    @Test
+    void testUpdate() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics());
+        int slot = store.store(session);
+        assertEquals(0, store.getCompletedSessions(slot));
+
+        session.endWork();
+        session.stop();
+        store.update(slot, session);
+        assertEquals(1, store.getCompletedSessions(slot));
+        assertEquals(SessionPhase.SHORT_BREAK, store.getPhase(slot));
+    }
+
+    @Test
+    void testFreeAndReuse() {
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics());
+        int first = store.store(session);
+        int second = store.store(session);
+        assertNotEquals(first, second);
+
+        store.free(first);
+        assertFalse(store.isInUse(first));
+        assertTrue(store.isInUse(second));
+        assertEquals(1, store.size());
+        assertEquals(first, store.store(session));
+        assertFalse(store.isInUse(-1));
+        assertFalse(store.isInUse(100));
+    }
+
+    @Test
+    void testGrowsBySegments() {
+        assertEquals(0, store.getReservedBytes());
+        PomodoroSession session = new PomodoroSession(25, 5, 10, new Statistics());
+        for (int i = 0; i < 70_000; i++) {
+            store.store(session);
+        }
+        assertEquals(70_000, store.size());
+        assertEquals(2L * 65_536 * OffHeapSessionStore.RECORD_SIZE, store.getReservedBytes());
+        assertTrue(store.isInUse(69_999));
+    }
+
+    @Test
+    void testLongBreakIntervalIsPreserved() {
+        PomodoroSession session = new PomodoroSession(new SessionConfig(25, 5, 10, 4), new Statistics(),
+                TimingWheel.shared());
+        int slot = store.store(session);
+        assertEquals(4, store.materialize(slot).getConfig().getLongBreakInterval());
+    }
+}
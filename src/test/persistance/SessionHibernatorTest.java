@@ -0,0 +1,129 @@
+package persistance;
+
+import model.PomodoroSession;
+import model.SessionPhase;
+import model.SimulationScheduler;
+import model.Statistics;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.SessionHibernator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHibernatorTest {
+    private SimulationScheduler simulation;
+    private Path directory;
+    private SessionHibernator hibernator;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        simulation = new SimulationScheduler();
+        directory = Files.createTempDirectory("hibernate");
+        hibernator = new SessionHibernator(directory, 2, TimeUnit.MINUTES.toMillis(30), simulation);
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsHibernated() throws IOException {
+        hibernator.put("a", newSession());
+        hibernator.put("b", newSession());
+        hibernator.get("a");
+        hibernator.put("c", newSession());
+
+        assertTrue(hibernator.isHibernated("b"));
+        assertTrue(hibernator.isResident("a"));
+        assertTrue(hibernator.isResident("c"));
+        assertEquals(2, hibernator.getResidentCount());
+        assertEquals(1, hibernator.getHibernatedCount());
+        assertTrue(Files.exists(directory.resolve("b.json")));
+    }
+
+    @Test
+    void testRehydrateRestoresState() throws IOException {
+        Statistics stat = new Statistics();
+        stat.addCompletedTaskList(new Task("Write report"));
+        PomodoroSession session = new PomodoroSession(30, 5, 15, stat, simulation);
+        session.startWork();
+        session.endWork();
+        session.endWork();
+        session.endWork();
+        session.stop();
+        hibernator.put("user/1", session);
+        hibernator.put("b", newSession());
+        hibernator.put("c", newSession());
+        assertTrue(hibernator.isHibernated("user/1"));
+
+        PomodoroSession back = hibernator.get("user/1");
+        assertNotSame(session, back);
+        assertEquals(SessionPhase.LONG_BREAK, back.getPhase());
+        assertEquals(15 * 60, back.getCurrentDuration());
+        assertFalse(back.isRunning());
+        assertEquals(3, back.getStatistics().getCompletedSessions());
+        assertEquals("Write report", back.getStatistics().getCompletedTaskList().get(0).getTaskName());
+        assertTrue(hibernator.isResident("user/1"));
+        assertFalse(hibernator.isHibernated("user/1"));
+        assertEquals(2, hibernator.getResidentCount());
+    }
+
+    @Test
+    void testRehydratedSessionRunsOnTheScheduler() throws IOException {
+        hibernator.put("a", newSession());
+        simulation.advance(TimeUnit.HOURS.toMillis(1));
+        assertEquals(1, hibernator.hibernateIdle());
+
+        PomodoroSession back = hibernator.get("a");
+        back.startWork();
+        simulation.advance(TimeUnit.MINUTES.toMillis(25));
+        assertEquals(SessionPhase.SHORT_BREAK, back.getPhase());
+    }
+
+    @Test
+    void testRunningSessionsStayResident() throws IOException {
+        PomodoroSession running = newSession();
+        running.startWork();
+        hibernator.put("running", running);
+        hibernator.put("b", newSession());
+        hibernator.put("c", newSession());
+        assertTrue(hibernator.isResident("running"));
+        assertTrue(hibernator.isHibernated("b"));
+
+        simulation.advance(TimeUnit.MINUTES.toMillis(20));
+        running.stop();
+        simulation.advance(TimeUnit.MINUTES.toMillis(20));
+        assertEquals(2, hibernator.hibernateIdle());
+        assertEquals(0, hibernator.getResidentCount());
+    }
+
+    @Test
+    void testIdleSweepKeepsRecentSessions() throws IOException {
+        hibernator.put("a", newSession());
+        simulation.advance(TimeUnit.MINUTES.toMillis(20));
+        hibernator.put("b", newSession());
+        simulation.advance(TimeUnit.MINUTES.toMillis(15));
+
+        assertEquals(1, hibernator.hibernateIdle());
+        assertTrue(hibernator.isHibernated("a"));
+        assertTrue(hibernator.isResident("b"));
+    }
+
+    @Test
+    void testRemoveAndUnknown() throws IOException {
+        hibernator.put("a", newSession());
+        hibernator.put("b", newSession());
+        hibernator.put("c", newSession());
+        assertTrue(hibernator.remove("a"));
+        assertTrue(hibernator.remove("c"));
+        assertFalse(Files.exists(directory.resolve("a.json")));
+        assertFalse(hibernator.remove("a"));
+        assertNull(hibernator.get("missing"));
+    }
+
+    private PomodoroSession newSession() {
+        return new PomodoroSession(25, 5, 10, new Statistics(), simulation);
+    }
+}